@@ -0,0 +1,87 @@
+package com.demo.softwaretests.person.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and exits with 1 if any benchmark got slower than the threshold in percent.
+ * Usage: {@code BenchmarkComparison <baseline.json> <current.json> [threshold]}
+ */
+public class BenchmarkComparison {
+
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    record Result(String mode, double score, String unit) {
+
+        double changeInPercent(Result baseline) {
+            double change = (score - baseline.score()) / baseline.score() * 100;
+            // only throughput gets better with a higher score
+            return "thrpt".equals(mode) ? -change : change;
+        }
+    }
+
+    public static void main(String[] arguments) throws IOException {
+        if (arguments.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = arguments.length > 2 ? Double.parseDouble(arguments[2]) : DEFAULT_THRESHOLD;
+
+        Map<String, Result> baseline = read(new File(arguments[0]));
+        Map<String, Result> current = read(new File(arguments[1]));
+
+        int regressions = 0;
+        for (var entry : current.entrySet()) {
+            Result baselineResult = baseline.get(entry.getKey());
+            Result currentResult = entry.getValue();
+            if (baselineResult == null) {
+                System.out.printf("%-90s %14s %14.3f %-8s new%n", entry.getKey(), "", currentResult.score(), currentResult.unit());
+                continue;
+            }
+
+            double change = currentResult.changeInPercent(baselineResult);
+            boolean regression = change > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %-8s %+7.1f%%%s%n",
+                    entry.getKey(), baselineResult.score(), currentResult.score(), currentResult.unit(),
+                    change, regression ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File resultFile) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(resultFile)) {
+            JsonNode metric = benchmark.get("primaryMetric");
+            results.put(
+                    name(benchmark),
+                    new Result(
+                            benchmark.get("mode").asText(),
+                            metric.get("score").asDouble(),
+                            metric.get("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static String name(JsonNode benchmark) {
+        Map<String, String> params = new LinkedHashMap<>();
+        JsonNode paramsNode = benchmark.get("params");
+        if (paramsNode != null) {
+            paramsNode.fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        }
+        String name = benchmark.get("benchmark").asText().replaceFirst("^com\\.demo\\.softwaretests\\.person\\.", "");
+        return params.isEmpty() ? name : name + params;
+    }
+}
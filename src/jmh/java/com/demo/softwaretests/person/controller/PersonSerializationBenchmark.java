@@ -0,0 +1,83 @@
+package com.demo.softwaretests.person.controller;
+
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.util.Persons;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes person pages the way the controller does: as a JSON array for the paged endpoints
+ * and as one JSON document per line for the NDJSON streams. The {@code cached} variants measure a page
+ * the query cache already handed out before, whose bytes come from the {@link SerializedPageCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter personListWriter;
+    private List<PersonView> persons;
+    private SerializedPageCache serializedPageCache;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        personListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, PersonView.class));
+        persons = Persons.views(Persons.generate(pageSize));
+        serializedPageCache = new SerializedPageCache(objectMapper, new SimpleMeterRegistry(), 64 << 20);
+    }
+
+    @Benchmark
+    public byte[] writeJsonArray() throws IOException {
+        return personListWriter.writeValueAsBytes(persons);
+    }
+
+    @Benchmark
+    public byte[] writeGzippedJsonArray() throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            personListWriter.writeValue(gzipOutputStream, persons);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] cachedJsonArray() {
+        return serializedPageCache.get(persons).json();
+    }
+
+    @Benchmark
+    public byte[] cachedGzippedJsonArray() {
+        return serializedPageCache.get(persons).gzipped();
+    }
+
+    @Benchmark
+    public byte[] writeNdjson() throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            for (var person : persons) {
+                generator.writeObject(person);
+                generator.writeRaw('\n');
+            }
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,72 @@
+package com.demo.softwaretests.person.repository;
+
+import com.demo.softwaretests.person.SoftwaretestsApplication;
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.util.Persons;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads one page of an email domain query as managed entities and as {@link PersonView} projections,
+ * each inside a read-only transaction like the repository uses. Run with {@code -prof gc} to compare allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonQueryBenchmark {
+
+    private static final String EMAIL_DOMAIN = "gmail.com";
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private PersonRepository personRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SoftwaretestsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "spring.datasource.url=jdbc:h2:mem:benchmark")
+                .run();
+        personRepository = context.getBean(PersonRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        personRepository.saveAll(Persons.generate(pageSize * 5));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Person> loadEntities() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select p from Person p where p.emailDomain = :emailDomain and p.id > 0 order by p.id", Person.class)
+                .setParameter("emailDomain", EMAIL_DOMAIN)
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<PersonView> loadProjections() {
+        return readOnlyTransaction.execute(status -> personRepository.findPageByEmailDomain(EMAIL_DOMAIN, 0, Limit.of(pageSize)));
+    }
+}
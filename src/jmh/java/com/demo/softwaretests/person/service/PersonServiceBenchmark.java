@@ -0,0 +1,122 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.util.Persons;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonServiceBenchmark {
+
+    private static final int PERSONS = 1024;
+
+    private PersonService personService;
+    private List<Person> persons;
+    private String[] firstNames;
+    private String[] lastNames;
+    private String[] unusedEmailAddresses;
+    private LocalDate today;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        persons = Persons.generate(PERSONS);
+        firstNames = new String[PERSONS];
+        lastNames = new String[PERSONS];
+        unusedEmailAddresses = new String[PERSONS];
+        for (int i = 0; i < PERSONS; i++) {
+            String[] names = persons.get(i).getFullName().split(" ");
+            firstNames[i] = names[0];
+            lastNames[i] = names[1];
+            unusedEmailAddresses[i] = "unused" + i + "@example.com";
+        }
+        today = LocalDate.now();
+
+        Set<String> emailAddressesInUse = persons.stream().map(Person::getEmailAddress).collect(Collectors.toSet());
+        var personRepository = inMemoryRepository(emailAddressesInUse);
+        var personShards = new PersonShards(null, null, noTransactionManager(), 1000);
+        var emailAddressFilter = new EmailAddressBloomFilter(
+                personRepository, personShards, noTransactionManager(), new SimpleMeterRegistry(), PERSONS, 0.01);
+        emailAddressesInUse.forEach(emailAddressFilter::put);
+
+        personService = new PersonService(
+                personRepository,
+                null,
+                emailAddressFilter,
+                new PersonQueryCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1)),
+                new PersonAgeIndex(personRepository, personShards, noTransactionManager(), false),
+                new PersonWriteBuffer(null, new SimpleMeterRegistry(), false, 1, 1, Duration.ZERO, Duration.ZERO),
+                new ReplicaReads(null, noTransactionManager(), new SimpleMeterRegistry(), Duration.ZERO, Duration.ZERO, Duration.ZERO),
+                personShards,
+                event -> {});
+    }
+
+    @Benchmark
+    public int calculateAge() {
+        return personService.calculateAge(nextPerson().getDateOfBirth(), today);
+    }
+
+    @Benchmark
+    public Person validateParametersOfUnusedEmailAddress() {
+        var person = nextPerson();
+        personService.validateParameters(person.getDateOfBirth(), unusedEmailAddresses[next]);
+        return person;
+    }
+
+    @Benchmark
+    public Object validateParametersOfEmailAddressInUse() {
+        var person = nextPerson();
+        try {
+            personService.validateParameters(person.getDateOfBirth(), person.getEmailAddress());
+            return person;
+        } catch (PersonCreationException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public Person buildPerson() {
+        var person = nextPerson();
+        return personService.buildPerson(firstNames[next], lastNames[next], person.getEmailAddress(), person.getDateOfBirth());
+    }
+
+    private Person nextPerson() {
+        next = (next + 1) & (PERSONS - 1);
+        return persons.get(next);
+    }
+
+    private static PersonRepository inMemoryRepository(Set<String> emailAddressesInUse) {
+        return (PersonRepository) Proxy.newProxyInstance(
+                PersonRepository.class.getClassLoader(),
+                new Class<?>[]{PersonRepository.class},
+                (proxy, method, arguments) -> switch (method.getName()) {
+                    case "existsByEmailAddress" -> emailAddressesInUse.contains((String) arguments[0]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static PlatformTransactionManager noTransactionManager() {
+        return (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(),
+                new Class<?>[]{PlatformTransactionManager.class},
+                (proxy, method, arguments) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
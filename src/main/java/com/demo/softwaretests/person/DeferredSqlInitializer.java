@@ -0,0 +1,59 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.service.PersonsSeededEvent;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the {@code spring.sql.init} scripts, e.g. {@code data.sql}, once the application is ready instead of while it
+ * starts, and then publishes a {@link PersonsSeededEvent}. The scripts run on a thread of their own, so the instance
+ * already serves requests and reports readiness meanwhile; until they finished, queries do not see the seeded persons.
+ */
+public class DeferredSqlInitializer extends SqlDataSourceScriptDatabaseInitializer
+        implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final CompletableFuture<Boolean> initialized = new CompletableFuture<>();
+
+    public DeferredSqlInitializer(
+            DataSource dataSource,
+            SqlInitializationProperties properties,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        super(dataSource, properties);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Thread.ofPlatform().name("deferred-sql-init").daemon().start(() -> {
+            try {
+                boolean ran = initializeDatabase();
+                if (ran) {
+                    eventPublisher.publishEvent(new PersonsSeededEvent());
+                }
+                initialized.complete(ran);
+            } catch (RuntimeException e) {
+                initialized.completeExceptionally(e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Completes with whether any script ran once the deferred initialization and the reloads it triggered finished.
+     */
+    public CompletableFuture<Boolean> initialized() {
+        return initialized;
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.softwaretests.person;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Infrastructure of the {@code fast-startup} profile, which initializes beans lazily and seeds the database
+ * once the application is ready, see {@link DeferredSqlInitializer}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "persons.fast-startup", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class FastStartupConfiguration {
+
+    // beans loading derived state from the table do so in afterSingletonsInstantiated, which lazy beans never get
+    @Bean
+    public static LazyInitializationExcludeFilter eagerDerivedState() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SmartInitializingSingleton.class);
+    }
+
+    // Spring Boot backs off from its own script initializer, which runs while the context starts
+    @Bean
+    public DeferredSqlInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource,
+            SqlInitializationProperties properties,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        return new DeferredSqlInitializer(dataSource, properties, eventPublisher);
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, configured with {@code persons.replicas.urls}. The replicas share the credentials of the primary
+ * given by {@code spring.datasource} and are expected to be kept up to date by the database's own replication.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "persons.replicas", name = "urls")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // JPA, the SQL initialization and the repositories all use this one, so it has to win over the primary pool
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            @Value("${persons.replicas.urls}") List<String> urls,
+            @Value("${persons.replicas.maximum-pool-size:10}") int maximumPoolSize
+    ) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            var replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+}
@@ -0,0 +1,70 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.SequenceMismatchStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Person storage sharded over the databases in {@code persons.shards.urls}, which share the credentials given by
+ * {@code spring.datasource}. The first shard also holds every table that is not sharded.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "persons.shards", name = "urls")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ShardConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties dataSourceProperties,
+            @Value("${persons.shards.urls}") List<String> urls,
+            @Value("${persons.shards.maximum-pool-size:10}") int maximumPoolSize
+    ) {
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            var shard = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            shard.setPoolName("shard-" + i);
+            shard.setMaximumPoolSize(maximumPoolSize);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // transactions take their connection when the first statement runs rather than when they begin,
+    // so a transaction opened before the shard is known does not hold on to a connection of the first shard
+    @Bean
+    @Primary
+    public LazyConnectionDataSourceProxy dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // every shard hands out its own stripes of ids, see PersonShards, so the sequences step further than one allocation
+    @Bean
+    public HibernatePropertiesCustomizer shardedSequencesCustomizer() {
+        return properties -> properties.put(
+                AvailableSettings.SEQUENCE_INCREMENT_SIZE_MISMATCH_STRATEGY, SequenceMismatchStrategy.NONE);
+    }
+}
@@ -1,42 +1,166 @@
 package com.demo.softwaretests.person.controller;
 
-import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.entity.PersonImport;
 import com.demo.softwaretests.person.exception.PersonCreationErrorResponse;
 import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.exception.PersonQueryErrorResponse;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.EmailDomainCount;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.AgeBucketCount;
+import com.demo.softwaretests.person.service.PersonAggregates;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonCreationResult;
+import com.demo.softwaretests.person.service.PersonCsvImporter;
+import com.demo.softwaretests.person.service.PersonDataVersion;
+import com.demo.softwaretests.person.service.PersonImportReport;
+import com.demo.softwaretests.person.service.PersonPage;
 import com.demo.softwaretests.person.service.PersonService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/persons")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PersonController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final String GZIP = "gzip";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final PersonService personService;
+    private final PersonCsvImporter personCsvImporter;
+    private final PersonAggregates personAggregates;
+    private final PersonDataVersion personDataVersion;
+    private final SerializedPageCache serializedPageCache;
+    private final ObjectMapper objectMapper;
 
-    public PersonController(PersonService personService) {
+    public PersonController(
+            PersonService personService,
+            PersonCsvImporter personCsvImporter,
+            PersonAggregates personAggregates,
+            PersonDataVersion personDataVersion,
+            SerializedPageCache serializedPageCache,
+            ObjectMapper objectMapper
+    ) {
         this.personService = personService;
+        this.personCsvImporter = personCsvImporter;
+        this.personAggregates = personAggregates;
+        this.personDataVersion = personDataVersion;
+        this.serializedPageCache = serializedPageCache;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/email-domain/{domain}")
-    public ResponseEntity<List<Person>> getAllPersonsByEmailDomain(@PathVariable String domain) {
-
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(personService.getAllPersonsByEmailDomain(domain));
+    public ResponseEntity<byte[]> getAllPersonsByEmailDomain(
+            @PathVariable String domain,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request
+    ) {
+        personService.validateEmailDomainQuery(domain, limit, after);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        var eTag = eTagOf(personDataVersion.tag(), gzip);
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        return toResponse(personService.getAllPersonsByEmailDomain(domain, limit, after), eTag, gzip);
     }
 
     @GetMapping("/age-range")
-    public ResponseEntity<List<Person>> getAllPersonsByAgeRange(
+    public ResponseEntity<byte[]> getAllPersonsByAgeRange(
+            @RequestParam("fromAge") int fromAge,
+            @RequestParam("toAge") int toAge,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request
+    ) {
+        personService.validateAgeRangeQuery(fromAge, toAge, limit, after);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        var eTag = eTagOf(personDataVersion.tag(), gzip);
+        if (request.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+        return toResponse(personService.getAllPersonsByAgeRange(fromAge, toAge, limit, after), eTag, gzip);
+    }
+
+    @GetMapping(value = "/email-domain/{domain}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPersonsByEmailDomain(@PathVariable String domain) {
+
+        return toNdjsonResponse(consumer -> personService.streamAllPersonsByEmailDomain(domain, consumer));
+    }
+
+    @GetMapping(value = "/age-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPersonsByAgeRange(
             @RequestParam("fromAge") int fromAge,
             @RequestParam("toAge") int toAge
     ) {
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(personService.getAllPersonsByAgeRange(fromAge, toAge));
+        return toNdjsonResponse(consumer -> personService.streamAllPersonsByAgeRange(fromAge, toAge, consumer));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllPersonsAsNdjson(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return toExportResponse(MediaType.APPLICATION_NDJSON, acceptEncoding, ndjsonBody(personService::streamAllPersons));
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllPersonsAsCsv(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            var writer = new PersonCsvWriter(outputStream);
+            writer.writeHeader();
+            personService.streamAllPersons(writer::write);
+            writer.flush();
+        };
+
+        return toExportResponse(MediaType.parseMediaType(TEXT_CSV_VALUE), acceptEncoding, body);
+    }
+
+    @GetMapping("/aggregates/age-buckets")
+    public ResponseEntity<List<AgeBucketCount>> countPersonsByAgeBuckets(
+            @RequestParam(value = "fromAge", defaultValue = "18") int fromAge,
+            @RequestParam(value = "toAge", defaultValue = "117") int toAge,
+            @RequestParam(value = "bucketSize", defaultValue = "10") int bucketSize
+    ) {
+        return ResponseEntity.ok(personAggregates.countByAgeBuckets(fromAge, toAge, bucketSize));
+    }
+
+    @GetMapping("/aggregates/email-domains")
+    public ResponseEntity<Map<String, Long>> countPersonsByEmailDomain() {
+
+        return ResponseEntity.ok(personAggregates.countByEmailDomain());
+    }
+
+    @GetMapping("/aggregates/email-domains/top")
+    public ResponseEntity<List<EmailDomainCount>> getTopEmailDomains(
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(personAggregates.topEmailDomains(limit));
     }
 
     @PostMapping("/create")
@@ -50,6 +174,32 @@ public class PersonController {
         personService.createPerson(firstName, lastName, email, dateOfBirth);
     }
 
+    @PostMapping("/create-bulk")
+    public ResponseEntity<List<PersonCreationResult>> createPersons(@RequestBody List<PersonCreationRequest> requests) {
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(personService.createPersons(requests));
+    }
+
+    @PutMapping(value = "/imports/{importId}", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<PersonImportReport> importPersons(
+            @PathVariable String importId,
+            @RequestParam(value = "batchSize", required = false) Integer batchSize,
+            InputStream csv
+    ) throws IOException {
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(personCsvImporter.importCsv(importId, csv, batchSize));
+    }
+
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<PersonImport> getImport(@PathVariable String importId) {
+
+        return ResponseEntity.of(personCsvImporter.findImport(importId));
+    }
+
     @ExceptionHandler(PersonCreationException.class)
     public ResponseEntity<PersonCreationErrorResponse> handleUserCreationException(
             PersonCreationException personCreationException
@@ -59,4 +209,101 @@ public class PersonController {
                 HttpStatus.BAD_REQUEST
         );
     }
+
+    @ExceptionHandler(PersonQueryException.class)
+    public ResponseEntity<PersonQueryErrorResponse> handlePersonQueryException(
+            PersonQueryException personQueryException
+    ) {
+        return new ResponseEntity<>(
+                new PersonQueryErrorResponse("Persons could not be queried!", personQueryException.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    private ResponseEntity<byte[]> toResponse(PersonPage page, String eTag, boolean gzip) {
+        var serializedPage = serializedPageCache.get(page.persons());
+        var response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(eTag);
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(serializedPage.gzipped());
+        }
+        return response.body(serializedPage.json());
+    }
+
+    private static ResponseEntity<byte[]> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    // ages move on at midnight even when no person was created, so the day is part of the tag;
+    // the gzipped representation has different bytes, so it needs a tag of its own
+    private static String eTagOf(String tag, boolean gzip) {
+        return "\"" + tag + "-" + LocalDate.now() + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    private ResponseEntity<StreamingResponseBody> toNdjsonResponse(Consumer<Consumer<PersonView>> query) {
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonBody(query));
+    }
+
+    private StreamingResponseBody ndjsonBody(Consumer<Consumer<PersonView>> query) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                query.accept(person -> writeLine(generator, person));
+            }
+        };
+    }
+
+    private ResponseEntity<StreamingResponseBody> toExportResponse(
+            MediaType mediaType,
+            String acceptEncoding,
+            StreamingResponseBody body
+    ) {
+        var response = ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(acceptEncoding)) {
+            return response.body(body);
+        }
+
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                .body(outputStream -> {
+                    try (var gzipStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE)) {
+                        body.writeTo(gzipStream);
+                    }
+                });
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].strip().equalsIgnoreCase(GZIP)) {
+                return parts.length == 1 || !parts[1].strip().toLowerCase(Locale.ROOT).matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void writeLine(JsonGenerator generator, PersonView person) {
+        try {
+            generator.writeObject(person);
+            generator.writeRaw('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
 }
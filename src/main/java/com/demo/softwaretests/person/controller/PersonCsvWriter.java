@@ -0,0 +1,74 @@
+package com.demo.softwaretests.person.controller;
+
+import com.demo.softwaretests.person.repository.PersonView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes persons as RFC 4180 CSV lines through a fixed-size buffer.
+ */
+class PersonCsvWriter {
+
+    private static final String HEADER = "id,fullName,emailAddress,emailDomain,dateOfBirth,age";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BufferedWriter writer;
+
+    PersonCsvWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    void writeHeader() throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    void write(PersonView person) {
+        try {
+            writer.write(Long.toString(person.id()));
+            writer.write(',');
+            writeField(person.fullName());
+            writer.write(',');
+            writeField(person.emailAddress());
+            writer.write(',');
+            writeField(person.emailDomain());
+            writer.write(',');
+            writer.write(person.dateOfBirth().toString());
+            writer.write(',');
+            writer.write(Integer.toString(person.age()));
+            writer.write('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == ',' || character == '"' || character == '\n' || character == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
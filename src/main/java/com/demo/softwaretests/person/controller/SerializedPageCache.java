@@ -0,0 +1,94 @@
+package com.demo.softwaretests.person.controller;
+
+import com.demo.softwaretests.person.repository.PersonView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bytes of the person pages handed out by the query cache, so repeated hits skip Jackson entirely.
+ * Entries are keyed by the identity of the page's person list: a page the query cache evicts, e.g. because
+ * a created person falls into it, is replaced by a new list and its bytes become unreachable with it.
+ * The gzipped form is only computed once a client asks for it.
+ */
+@Component
+class SerializedPageCache {
+
+    static final class SerializedPage {
+
+        private final byte[] json;
+        private volatile byte[] gzipped;
+
+        private SerializedPage(byte[] json) {
+            this.json = json;
+        }
+
+        byte[] json() {
+            return json;
+        }
+
+        byte[] gzipped() {
+            var compressed = gzipped;
+            if (compressed == null) {
+                compressed = gzip(json);
+                gzipped = compressed;
+            }
+            return compressed;
+        }
+    }
+
+    private final ObjectWriter personListWriter;
+    private final Cache<List<PersonView>, SerializedPage> pages;
+
+    SerializedPageCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${persons.response-cache.maximum-bytes:67108864}") long maximumBytes
+    ) {
+        this.personListWriter = objectMapper.writerFor(
+                objectMapper.getTypeFactory().constructCollectionType(List.class, PersonView.class));
+        this.pages = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumWeight(maximumBytes)
+                // gzipped copies add a fraction of the JSON size on top
+                .<List<PersonView>, SerializedPage>weigher((persons, page) -> page.json().length)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "persons.responses");
+    }
+
+    SerializedPage get(List<PersonView> persons) {
+        return pages.get(persons, this::serialize);
+    }
+
+    private SerializedPage serialize(List<PersonView> persons) {
+        try {
+            return new SerializedPage(personListWriter.writeValueAsBytes(persons));
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        var outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -1,22 +1,48 @@
 package com.demo.softwaretests.person.entity;
 
+import com.demo.softwaretests.person.service.EmailAddressFilterListener;
 import jakarta.persistence.*;
 
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Locale;
+
 @Entity
+@EntityListeners(EmailAddressFilterListener.class)
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = Person.EMAIL_ADDRESS_CONSTRAINT,
+        columnNames = "email_address"
+), indexes = {
+        @Index(name = "idx_person_date_of_birth_id", columnList = "date_of_birth, id"),
+        @Index(name = "idx_person_email_domain_id", columnList = "email_domain, id")
+})
 public class Person {
 
+    public static final String EMAIL_ADDRESS_CONSTRAINT = "uk_person_email_address";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
     private String fullName;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String emailAddress;
 
-    @Column
-    private Integer age;
+    @Column(nullable = false)
+    private String emailDomain;
+
+    @Column(nullable = false)
+    private LocalDate dateOfBirth;
+
+    public static String toEmailDomain(String emailAddressOrDomain) {
+        return emailAddressOrDomain
+                .substring(emailAddressOrDomain.lastIndexOf('@') + 1)
+                .toLowerCase(Locale.ROOT);
+    }
 
     public Long getId() {
         return id;
@@ -36,13 +62,22 @@ public class Person {
 
     public void setEmailAddress(String emailAddress) {
         this.emailAddress = emailAddress;
+        this.emailDomain = toEmailDomain(emailAddress);
     }
 
-    public Integer getAge() {
-        return age;
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
     }
 
-    public void setAge(Integer age) {
-        this.age = age;
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public Integer getAge() {
+        return dateOfBirth == null ? null : Period.between(dateOfBirth, LocalDate.now()).getYears();
     }
 }
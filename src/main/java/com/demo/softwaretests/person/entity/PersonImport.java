@@ -0,0 +1,81 @@
+package com.demo.softwaretests.person.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint of a CSV import, committed together with every chunk of persons it inserts.
+ * {@code processedRows} counts the data rows behind that checkpoint, so an interrupted import resumes after them.
+ */
+@Entity
+public class PersonImport {
+
+    public enum Status { RUNNING, FAILED, COMPLETED }
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private long processedRows;
+
+    private long importedRows;
+
+    private long rejectedRows;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @Version
+    @JsonIgnore
+    private long version;
+
+    protected PersonImport() {
+    }
+
+    public PersonImport(String id) {
+        this.id = id;
+        this.status = Status.RUNNING;
+        this.updatedAt = Instant.now();
+    }
+
+    public void recordChunk(long importedRows, long rejectedRows) {
+        this.processedRows += importedRows + rejectedRows;
+        this.importedRows += importedRows;
+        this.rejectedRows += rejectedRows;
+        this.updatedAt = Instant.now();
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getProcessedRows() {
+        return processedRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.softwaretests.person.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Checkpoint of a CSV import on one shard, committed in the same transaction as the shard's share of every chunk.
+ * Only the last chunk is kept: the import's own checkpoint commits after every shard, so at most the last chunk
+ * can be committed on some shards and not yet on the import, and a resumed import skips it on those shards.
+ */
+@Entity
+public class PersonImportShard {
+
+    @Id
+    private String id;
+
+    private long chunkEndRow;
+
+    private long chunkImportedRows;
+
+    private long chunkRejectedRows;
+
+    protected PersonImportShard() {
+    }
+
+    public PersonImportShard(String id) {
+        this.id = id;
+    }
+
+    public void recordChunk(long chunkEndRow, long importedRows, long rejectedRows) {
+        this.chunkEndRow = chunkEndRow;
+        this.chunkImportedRows = importedRows;
+        this.chunkRejectedRows = rejectedRows;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getChunkEndRow() {
+        return chunkEndRow;
+    }
+
+    public long getChunkImportedRows() {
+        return chunkImportedRows;
+    }
+
+    public long getChunkRejectedRows() {
+        return chunkRejectedRows;
+    }
+}
@@ -0,0 +1,21 @@
+package com.demo.softwaretests.person.exception;
+
+public class PersonQueryErrorResponse {
+
+    private final String errorMessage;
+    private final String exceptionReason;
+
+    public PersonQueryErrorResponse(String errorMessage, String exceptionReason) {
+        this.errorMessage = errorMessage;
+        this.exceptionReason = exceptionReason;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public String getExceptionReason() {
+        return exceptionReason;
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.demo.softwaretests.person.exception;
+
+public class PersonQueryException extends RuntimeException {
+
+    public PersonQueryException(String reason) {
+        super(reason);
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.softwaretests.person.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Records the number of rows every repository method returns, next to the invocation timers Spring Boot
+ * already publishes as {@code spring.data.repository.invocations}. Streamed results are counted when the stream is closed.
+ */
+@Component
+public class RepositoryRowCountMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RepositoryRowCountMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+            repositoryFactoryBean.addRepositoryFactoryCustomizer(repositoryFactory ->
+                    repositoryFactory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(new RowCountingInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private class RowCountingInterceptor implements MethodInterceptor {
+
+        private final String repository;
+
+        RowCountingInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            String method = invocation.getMethod().getName();
+
+            if (result instanceof Stream<?> stream) {
+                var rows = new AtomicLong();
+                return stream
+                        .peek(ignored -> rows.incrementAndGet())
+                        .onClose(() -> record(method, rows.get()));
+            }
+            if (result instanceof Collection<?> collection) {
+                record(method, collection.size());
+            } else if (result instanceof Optional<?> optional) {
+                record(method, optional.isPresent() ? 1 : 0);
+            } else if (result != null && !(result instanceof Boolean) && !(result instanceof Number)) {
+                record(method, 1);
+            }
+            return result;
+        }
+
+        private void record(String method, long rows) {
+            DistributionSummary.builder("persons.repository.rows")
+                    .description("Rows returned per repository method invocation")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry.getObject())
+                    .record(rows);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo.softwaretests.person.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a counter is bound to the current thread.
+ * As the task decorator of the application task executor it carries the counter over to async work,
+ * such as streamed responses, started from a counted thread.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer, TaskDecorator {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var statements = CURRENT.get();
+        if (statements != null) {
+            statements.incrementAndGet();
+        }
+        return sql;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        var statements = CURRENT.get();
+        if (statements == null) {
+            return runnable;
+        }
+        return () -> {
+            var previous = bind(statements);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public AtomicInteger bind(AtomicInteger statements) {
+        var previous = CURRENT.get();
+        CURRENT.set(statements);
+        return previous;
+    }
+
+    public void restore(AtomicInteger previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.demo.softwaretests.person.repository;
+
+import java.time.LocalDate;
+
+public record DateOfBirthCount(LocalDate dateOfBirth, long count) {
+}
@@ -0,0 +1,4 @@
+package com.demo.softwaretests.person.repository;
+
+public record EmailDomainCount(String emailDomain, long count) {
+}
@@ -0,0 +1,9 @@
+package com.demo.softwaretests.person.repository;
+
+import com.demo.softwaretests.person.entity.PersonImportShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PersonImportShardRepository extends JpaRepository<PersonImportShard, String> {
+}
@@ -1,16 +1,106 @@
 package com.demo.softwaretests.person.repository;
 
 import com.demo.softwaretests.person.entity.Person;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
 
-    List<Person> findAllByAgeBetween(int fromAge, int toAge);
-    List<Person> findAllByEmailAddressEndsWith(String emailDomain);
+    String STREAM_FETCH_SIZE = "500";
+    String EXPORT_FETCH_SIZE = "2000";
+
+    // the redundant bound on the date of birth alone lets the database seek to the cursor, the OR cannot;
+    // both columns descending walk the (date_of_birth, id) index backwards instead of sorting the range
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            where p.dateOfBirth > :bornAfter and p.dateOfBirth <= :bornOnOrBefore
+              and p.dateOfBirth <= :afterDateOfBirth
+              and (p.dateOfBirth < :afterDateOfBirth or (p.dateOfBirth = :afterDateOfBirth and p.id < :afterId))
+            order by p.dateOfBirth desc, p.id desc
+            """)
+    List<PersonView> findPageByDateOfBirthRange(
+            LocalDate bornAfter,
+            LocalDate bornOnOrBefore,
+            LocalDate afterDateOfBirth,
+            long afterId,
+            Limit limit
+    );
+
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            where p.id in :ids
+            """)
+    List<PersonView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            where p.emailDomain = :emailDomain and p.id > :afterId
+            order by p.id
+            """)
+    List<PersonView> findPageByEmailDomain(String emailDomain, long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            where p.dateOfBirth > :bornAfter and p.dateOfBirth <= :bornOnOrBefore
+            order by p.dateOfBirth desc, p.id desc
+            """)
+    Stream<PersonView> streamAllByDateOfBirthRange(LocalDate bornAfter, LocalDate bornOnOrBefore);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            where p.emailDomain = :emailDomain
+            order by p.id
+            """)
+    Stream<PersonView> streamAllByEmailDomain(String emailDomain);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+            select new com.demo.softwaretests.person.repository.PersonView(p.id, p.fullName, p.emailAddress, p.emailDomain, p.dateOfBirth)
+            from Person p
+            order by p.id
+            """)
+    Stream<PersonView> streamAllOrderedById();
+
+    @Query("""
+            select new com.demo.softwaretests.person.repository.DateOfBirthCount(p.dateOfBirth, count(p))
+            from Person p
+            group by p.dateOfBirth
+            """)
+    List<DateOfBirthCount> countPersonsPerDateOfBirth();
+
+    @Query("""
+            select new com.demo.softwaretests.person.repository.EmailDomainCount(p.emailDomain, count(p))
+            from Person p
+            group by p.emailDomain
+            """)
+    List<EmailDomainCount> countPersonsPerEmailDomain();
 
     boolean existsByEmailAddress(String emailAddress);
+
+    @Query("select p.emailAddress from Person p where p.emailAddress in :emailAddresses")
+    Set<String> findEmailAddressesIn(Collection<String> emailAddresses);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select p.emailAddress from Person p")
+    Stream<String> streamAllEmailAddresses();
 }
@@ -0,0 +1,18 @@
+package com.demo.softwaretests.person.repository;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Read-only projection of a person for the query endpoints. It is built directly from the result set,
+ * so reading it neither registers entities in the persistence context nor keeps snapshots for dirty checking.
+ */
+public record PersonView(Long id, String fullName, String emailAddress, String emailDomain, LocalDate dateOfBirth) {
+
+    @JsonProperty
+    public int age() {
+        return Period.between(dateOfBirth, LocalDate.now()).getYears();
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.softwaretests.person.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the primary database unless the current thread runs inside {@link #onReplica},
+ * so everything not explicitly routed, writes in particular, stays on the primary.
+ * The routing decision is made when a connection is acquired, i.e. when a transaction begins.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<String> CURRENT_REPLICA = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = Map.copyOf(replicas);
+        setDefaultTargetDataSource(primary);
+        setTargetDataSources(new HashMap<>(replicas));
+        // an unknown replica name is a bug, not a reason to silently read from the primary
+        setLenientFallback(false);
+    }
+
+    public static <T> T onReplica(String replica, Supplier<T> query) {
+        var previous = CURRENT_REPLICA.get();
+        CURRENT_REPLICA.set(replica);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_REPLICA.remove();
+            } else {
+                CURRENT_REPLICA.set(previous);
+            }
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_REPLICA.get();
+    }
+
+    // the replica pools are created along with this data source, the primary pool is a bean of its own
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
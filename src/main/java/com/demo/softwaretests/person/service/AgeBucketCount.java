@@ -0,0 +1,7 @@
+package com.demo.softwaretests.person.service;
+
+/**
+ * Number of persons aged {@code fromAge} to {@code toAge}, both inclusive.
+ */
+public record AgeBucketCount(int fromAge, int toAge, long count) {
+}
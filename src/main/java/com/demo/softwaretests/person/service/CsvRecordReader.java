@@ -0,0 +1,98 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 reader: returns one record at a time from a fixed-size buffer, so arbitrarily large
+ * inputs are parsed in constant memory. Quoted fields may contain separators, doubled quotes and line breaks.
+ */
+class CsvRecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private long line = 1;
+    private long recordLine;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the fields of the next record, or {@code null} once the input is exhausted.
+     */
+    List<String> next() throws IOException {
+        int character = read();
+        if (character == END_OF_INPUT) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (character == END_OF_INPUT) {
+                    throw new PersonCreationException(
+                            String.format("The quoted field starting in line %d is not closed.", recordLine)
+                    );
+                }
+                if (character == '"') {
+                    character = read();
+                    if (character != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (character == '\n') {
+                    line++;
+                }
+                field.append((char) character);
+            } else if (character == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (character == '\n' || character == END_OF_INPUT) {
+                if (character == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (character == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (character != '\r') {
+                field.append((char) character);
+            }
+            character = read();
+        }
+    }
+
+    /**
+     * Line number, starting at 1, on which the record last returned by {@link #next()} starts.
+     */
+    long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return END_OF_INPUT;
+            }
+        }
+        return buffer[position++];
+    }
+}
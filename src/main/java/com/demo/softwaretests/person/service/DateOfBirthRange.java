@@ -0,0 +1,23 @@
+package com.demo.softwaretests.person.service;
+
+import java.time.LocalDate;
+
+/**
+ * The dates of birth of everybody whose age lies within an age range on a given day,
+ * so age queries can seek on the indexed date of birth instead of a stored age.
+ */
+public record DateOfBirthRange(LocalDate bornAfter, LocalDate bornOnOrBefore) {
+
+    private static final int MAXIMUM_AGE = 200;
+
+    public static DateOfBirthRange forAgeRange(int fromAge, int toAge, LocalDate today) {
+        return new DateOfBirthRange(
+                today.minusYears(Math.clamp(toAge, -1, MAXIMUM_AGE) + 1L),
+                today.minusYears(Math.clamp(fromAge, 0, MAXIMUM_AGE + 1))
+        );
+    }
+
+    public boolean contains(LocalDate dateOfBirth) {
+        return dateOfBirth.isAfter(bornAfter) && !dateOfBirth.isAfter(bornOnOrBefore);
+    }
+}
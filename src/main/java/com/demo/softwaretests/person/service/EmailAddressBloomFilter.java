@@ -0,0 +1,233 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over all email addresses in the person table. A negative answer is definite,
+ * a positive answer has to be confirmed against the database.
+ * The filter never forgets addresses, so deleted persons only ever cause additional false positives.
+ * A rebuild keeps the addresses of transactions still running when it starts, which its snapshot may miss.
+ */
+@Component
+public class EmailAddressBloomFilter implements SmartInitializingSingleton {
+
+    private final PersonRepository personRepository;
+    private final PersonShards personShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final int numberOfBits;
+    private final int numberOfHashFunctions;
+
+    private volatile AtomicLongArray bits;
+    private volatile AtomicLongArray rebuildingBits;
+
+    // addresses put by transactions that have not completed yet, counted per transaction
+    private final Map<String, Integer> uncommittedEmailAddresses = new ConcurrentHashMap<>();
+
+    private final Counter definitelyAbsentLookups;
+    private final Counter falsePositiveLookups;
+    private final Counter truePositiveLookups;
+
+    public EmailAddressBloomFilter(
+            PersonRepository personRepository,
+            PersonShards personShards,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${persons.email-bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${persons.email-bloom-filter.false-positive-probability:0.01}") double falsePositiveProbability
+    ) {
+        this.personRepository = personRepository;
+        this.personShards = personShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.numberOfBits = optimalNumberOfBits(expectedInsertions, falsePositiveProbability);
+        this.numberOfHashFunctions = optimalNumberOfHashFunctions(expectedInsertions, numberOfBits);
+        this.bits = newBitArray();
+
+        this.definitelyAbsentLookups = lookupCounter(meterRegistry, "definitely_absent");
+        this.falsePositiveLookups = lookupCounter(meterRegistry, "false_positive");
+        this.truePositiveLookups = lookupCounter(meterRegistry, "true_positive");
+        Gauge.builder("persons.email.filter.false.positive.rate", this, EmailAddressBloomFilter::falsePositiveRate)
+                .description("Share of absent email addresses the filter could not rule out")
+                .register(meterRegistry);
+        Gauge.builder("persons.email.filter.expected.false.positive.probability", this, EmailAddressBloomFilter::expectedFalsePositiveProbability)
+                .description("False positive probability implied by the current fill ratio")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public boolean mightContain(String emailAddress) {
+        if (emailAddress == null) {
+            return false;
+        }
+
+        var currentBits = bits;
+        long hash = hash(emailAddress);
+        long increment = increment(hash);
+
+        for (int i = 0; i < numberOfHashFunctions; i++) {
+            int bitIndex = bitIndex(hash, increment, i);
+            if ((currentBits.get(bitIndex >>> 6) & (1L << bitIndex)) == 0) {
+                definitelyAbsentLookups.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void recordConfirmations(int possibleHits, int confirmedHits) {
+        truePositiveLookups.increment(confirmedHits);
+        falsePositiveLookups.increment(possibleHits - confirmedHits);
+    }
+
+    public void put(String emailAddress) {
+        trackUntilCompletion(emailAddress);
+        var pendingBits = rebuildingBits;
+        setBits(bits, emailAddress);
+        if (pendingBits != null) {
+            setBits(pendingBits, emailAddress);
+        }
+    }
+
+    // a lock instead of synchronized, so a virtual thread streaming the table does not pin its carrier
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildingBits = newBitArray();
+            // put before the rebuild started, but committed too late for the snapshot below
+            uncommittedEmailAddresses.keySet().forEach(emailAddress -> setBits(rebuildingBits, emailAddress));
+            personShards.forEachShard(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emailAddresses = personRepository.streamAllEmailAddresses()) {
+                    emailAddresses.forEach(emailAddress -> setBits(rebuildingBits, emailAddress));
+                }
+            }));
+            bits = rebuildingBits;
+            rebuildingBits = null;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onPersonsSeeded(PersonsSeededEvent event) {
+        rebuild();
+    }
+
+    public int getNumberOfBits() {
+        return numberOfBits;
+    }
+
+    public int getNumberOfHashFunctions() {
+        return numberOfHashFunctions;
+    }
+
+    public double falsePositiveRate() {
+        double falsePositives = falsePositiveLookups.count();
+        double absentLookups = falsePositives + definitelyAbsentLookups.count();
+        return absentLookups == 0 ? 0 : falsePositives / absentLookups;
+    }
+
+    public double expectedFalsePositiveProbability() {
+        var currentBits = bits;
+        long setBits = 0;
+        for (int i = 0; i < currentBits.length(); i++) {
+            setBits += Long.bitCount(currentBits.get(i));
+        }
+        return Math.pow((double) setBits / numberOfBits, numberOfHashFunctions);
+    }
+
+    private void trackUntilCompletion(String emailAddress) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        uncommittedEmailAddresses.merge(emailAddress, 1, Integer::sum);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                uncommittedEmailAddresses.computeIfPresent(emailAddress, (address, count) -> count == 1 ? null : count - 1);
+            }
+        });
+    }
+
+    private void setBits(AtomicLongArray targetBits, String emailAddress) {
+        long hash = hash(emailAddress);
+        long increment = increment(hash);
+
+        for (int i = 0; i < numberOfHashFunctions; i++) {
+            int bitIndex = bitIndex(hash, increment, i);
+            long mask = 1L << bitIndex;
+            targetBits.getAndAccumulate(bitIndex >>> 6, mask, (word, bit) -> word | bit);
+        }
+    }
+
+    private int bitIndex(long hash, long increment, int i) {
+        return (int) Long.remainderUnsigned(hash + i * increment, numberOfBits);
+    }
+
+    private AtomicLongArray newBitArray() {
+        return new AtomicLongArray((numberOfBits + 63) >>> 6);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("persons.email.filter.lookups")
+                .description("Email address lookups answered by the Bloom filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static int optimalNumberOfBits(long expectedInsertions, double falsePositiveProbability) {
+        double bits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        return (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(bits)));
+    }
+
+    private static int optimalNumberOfHashFunctions(long expectedInsertions, int numberOfBits) {
+        return Math.max(1, (int) Math.round((double) numberOfBits / expectedInsertions * Math.log(2)));
+    }
+
+    // 64-bit FNV-1a, finished with the murmur3 avalanche step
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long increment(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.demo.softwaretests.person.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "emailfilter")
+public class EmailAddressFilterEndpoint {
+
+    private final EmailAddressBloomFilter emailAddressFilter;
+
+    public EmailAddressFilterEndpoint(EmailAddressBloomFilter emailAddressFilter) {
+        this.emailAddressFilter = emailAddressFilter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> emailFilter() {
+        return Map.of(
+                "numberOfBits", emailAddressFilter.getNumberOfBits(),
+                "numberOfHashFunctions", emailAddressFilter.getNumberOfHashFunctions(),
+                "falsePositiveRate", emailAddressFilter.falsePositiveRate(),
+                "expectedFalsePositiveProbability", emailAddressFilter.expectedFalsePositiveProbability()
+        );
+    }
+
+    @WriteOperation
+    public void rebuild() {
+        emailAddressFilter.rebuild();
+    }
+}
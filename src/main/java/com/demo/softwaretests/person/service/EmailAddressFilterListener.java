@@ -0,0 +1,22 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Feeds every persisted email address into the {@link EmailAddressBloomFilter}, whichever code path saved the person.
+ */
+public class EmailAddressFilterListener {
+
+    private final ObjectProvider<EmailAddressBloomFilter> emailAddressFilter;
+
+    public EmailAddressFilterListener(ObjectProvider<EmailAddressBloomFilter> emailAddressFilter) {
+        this.emailAddressFilter = emailAddressFilter;
+    }
+
+    @PostPersist
+    void onPostPersist(Person person) {
+        emailAddressFilter.ifAvailable(filter -> filter.put(person.getEmailAddress()));
+    }
+}
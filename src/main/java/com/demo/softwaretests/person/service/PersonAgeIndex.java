@@ -0,0 +1,251 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory index from date of birth to person ids, enabled with {@code persons.age-index.enabled}.
+ * Every day holds a sorted {@code long[]} of ids that is replaced on write, so lookups read immutable arrays
+ * without locks or boxing and return ids in the order of the age-range pages: date of birth descending, id descending.
+ * Ages are derived from days rather than stored, so the index never goes stale at midnight.
+ * Like the Bloom filter it only learns about persons created through this instance and never forgets deleted ones.
+ */
+@Component
+public class PersonAgeIndex implements SmartInitializingSingleton {
+
+    public record IndexedIds(long[] ids, LocalDate lastDateOfBirth) {
+
+        public boolean isEmpty() {
+            return ids.length == 0;
+        }
+    }
+
+    public record Footprint(long persons, long bytes, long bytesPerMillionPersons) {
+    }
+
+    // age ranges never reach back more than 200 years, persons born after 2200 are under age for a while
+    private static final long FIRST_DAY = LocalDate.of(1800, 1, 1).toEpochDay();
+    private static final int DAYS = (int) (LocalDate.of(2200, 1, 1).toEpochDay() - FIRST_DAY);
+    private static final long[] NO_IDS = new long[0];
+
+    // assuming compressed references: 16 byte array headers and 4 byte references
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final PersonRepository personRepository;
+    private final PersonShards personShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder persons = new LongAdder();
+
+    private volatile AtomicReferenceArray<long[]> idsByDay;
+
+    public PersonAgeIndex(
+            PersonRepository personRepository,
+            PersonShards personShards,
+            PlatformTransactionManager transactionManager,
+            @Value("${persons.age-index.enabled:false}") boolean enabled
+    ) {
+        this.personRepository = personRepository;
+        this.personShards = personShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.idsByDay = new AtomicReferenceArray<>(enabled ? DAYS : 0);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reloads all ids from the table. Persons created meanwhile wait for the rebuild and are then added,
+     * adding a person the rebuild already read is a no-op.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            var days = new long[DAYS][];
+            var sizes = new int[DAYS];
+            personShards.forEachShard(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<PersonView> all = personRepository.streamAllOrderedById()) {
+                    all.forEach(person -> {
+                        int day = dayOf(person.dateOfBirth());
+                        if (day < 0) {
+                            return;
+                        }
+                        if (days[day] == null || sizes[day] == days[day].length) {
+                            days[day] = days[day] == null ? new long[4] : Arrays.copyOf(days[day], sizes[day] * 2);
+                        }
+                        days[day][sizes[day]++] = person.id();
+                    });
+                }
+            }));
+
+            var rebuilt = new AtomicReferenceArray<long[]>(DAYS);
+            long count = 0;
+            for (int day = 0; day < DAYS; day++) {
+                if (days[day] != null) {
+                    // sharded persons arrive in id order per shard, one shard after the other
+                    long[] dayIds = Arrays.copyOf(days[day], sizes[day]);
+                    Arrays.sort(dayIds);
+                    rebuilt.set(day, dayIds);
+                    count += sizes[day];
+                }
+            }
+            idsByDay = rebuilt;
+            persons.reset();
+            persons.add(count);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onPersonsSeeded(PersonsSeededEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonsCreated(PersonsCreatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        // a bulk creation copies every day it touches once, instead of once per person
+        Map<Integer, List<Long>> createdIdsByDay = new HashMap<>();
+        for (Person person : event.persons()) {
+            int day = dayOf(person.getDateOfBirth());
+            if (day >= 0) {
+                createdIdsByDay.computeIfAbsent(day, ignored -> new ArrayList<>()).add(person.getId());
+            }
+        }
+
+        writeLock.lock();
+        try {
+            createdIdsByDay.forEach((day, ids) -> add(day, ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids of persons born within the range that come after the keyset position
+     * {@code (afterDateOfBirth, afterId)}, together with the date of birth of the last one to continue from.
+     */
+    public IndexedIds findIds(DateOfBirthRange range, LocalDate afterDateOfBirth, long afterId, int limit) {
+        var days = idsByDay;
+        long[] ids = new long[limit];
+        int found = 0;
+        int lastDay = 0;
+
+        int afterDay = dayOf(afterDateOfBirth);
+        int firstDay = Math.min(clampedDayOf(range.bornOnOrBefore()), clampedDayOf(afterDateOfBirth));
+        int endDay = clampedDayOf(range.bornAfter());
+        for (int day = firstDay; day > endDay && found < limit; day--) {
+            long[] dayIds = days.get(day);
+            if (dayIds == null) {
+                continue;
+            }
+
+            // ids are stored ascending and read backwards
+            int end = day == afterDay ? firstIndexNotBefore(dayIds, afterId) : dayIds.length;
+            int count = Math.min(end, limit - found);
+            for (int i = end - 1; i >= end - count; i--) {
+                ids[found++] = dayIds[i];
+            }
+            if (count > 0) {
+                lastDay = day;
+            }
+        }
+
+        return found == 0
+                ? new IndexedIds(NO_IDS, null)
+                : new IndexedIds(Arrays.copyOf(ids, found), LocalDate.ofEpochDay(FIRST_DAY + lastDay));
+    }
+
+    /**
+     * Estimated heap used by the index: the day table plus one id array per day that has persons.
+     */
+    public Footprint footprint() {
+        var days = idsByDay;
+        long bytes = ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * days.length();
+        for (int day = 0; day < days.length(); day++) {
+            long[] dayIds = days.get(day);
+            if (dayIds != null) {
+                bytes += ARRAY_HEADER_BYTES + (long) Long.BYTES * dayIds.length;
+            }
+        }
+        long count = persons.sum();
+        return new Footprint(count, bytes, count == 0 ? 0 : bytes * 1_000_000 / count);
+    }
+
+    // merges the sorted ids into the day's ids in one pass, skipping ids the day already holds
+    private void add(int day, long[] sortedIds) {
+        var days = idsByDay;
+        long[] dayIds = days.get(day);
+        if (dayIds == null) {
+            dayIds = NO_IDS;
+        }
+
+        long[] merged = new long[dayIds.length + sortedIds.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < dayIds.length || j < sortedIds.length) {
+            long next = j == sortedIds.length || (i < dayIds.length && dayIds[i] <= sortedIds[j]) ? dayIds[i++] : sortedIds[j++];
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        if (size == dayIds.length) {
+            return;
+        }
+
+        days.set(day, size == merged.length ? merged : Arrays.copyOf(merged, size));
+        persons.add(size - dayIds.length);
+    }
+
+    private static int firstIndexNotBefore(long[] sortedIds, long id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int dayOf(LocalDate dateOfBirth) {
+        long day = dateOfBirth.toEpochDay() - FIRST_DAY;
+        return day < 0 || day >= DAYS ? -1 : (int) day;
+    }
+
+    private static int clampedDayOf(LocalDate date) {
+        return (int) Math.clamp(date.toEpochDay() - FIRST_DAY, -1, DAYS - 1);
+    }
+}
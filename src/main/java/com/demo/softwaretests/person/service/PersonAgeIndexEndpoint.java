@@ -0,0 +1,35 @@
+package com.demo.softwaretests.person.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "ageindex")
+public class PersonAgeIndexEndpoint {
+
+    private final PersonAgeIndex personAgeIndex;
+
+    public PersonAgeIndexEndpoint(PersonAgeIndex personAgeIndex) {
+        this.personAgeIndex = personAgeIndex;
+    }
+
+    @ReadOperation
+    public Map<String, Object> ageIndex() {
+        var footprint = personAgeIndex.footprint();
+        return Map.of(
+                "enabled", personAgeIndex.isEnabled(),
+                "persons", footprint.persons(),
+                "bytes", footprint.bytes(),
+                "bytesPerMillionPersons", footprint.bytesPerMillionPersons()
+        );
+    }
+
+    @WriteOperation
+    public void rebuild() {
+        personAgeIndex.rebuild();
+    }
+}
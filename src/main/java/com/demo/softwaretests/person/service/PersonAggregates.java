@@ -0,0 +1,232 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.DateOfBirthCount;
+import com.demo.softwaretests.person.repository.EmailDomainCount;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory person counts per date of birth and per email domain, rebuilt from the table on startup and
+ * maintained from {@link PersonsCreatedEvent}s, so aggregate queries never touch the database.
+ * Dates of birth are counted in a Fenwick tree over days rather than per age, since ages change every midnight:
+ * counting an age range takes O(log days), an age bucket histogram O(buckets * log days).
+ */
+@Component
+public class PersonAggregates implements SmartInitializingSingleton {
+
+    private static final int MAXIMUM_BUCKETS = 200;
+    private static final int MAXIMUM_TOP_DOMAINS = 1000;
+
+    private final PersonRepository personRepository;
+    private final PersonShards personShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // creations read both counts under the read lock, so a rebuild swapping them never sees one half done
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private volatile Counts counts = new Counts();
+    private volatile Counts rebuildingCounts;
+
+    public PersonAggregates(
+            PersonRepository personRepository,
+            PersonShards personShards,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.personRepository = personRepository;
+        this.personShards = personShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Recounts the table. Persons created while the recount runs are also collected aside and added to it before
+     * it replaces the current counts, so none is lost; one committed just before the recount started may be counted
+     * twice until the next rebuild.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            var pendingCounts = new Counts();
+            swapLock.writeLock().lock();
+            try {
+                rebuildingCounts = pendingCounts;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            List<DateOfBirthCount> dateOfBirthCounts = new ArrayList<>();
+            List<EmailDomainCount> emailDomainCounts = new ArrayList<>();
+            personShards.forEachShard(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                dateOfBirthCounts.addAll(personRepository.countPersonsPerDateOfBirth());
+                emailDomainCounts.addAll(personRepository.countPersonsPerEmailDomain());
+            }));
+            var recount = Counts.of(dateOfBirthCounts, emailDomainCounts);
+
+            swapLock.writeLock().lock();
+            try {
+                recount.addAll(pendingCounts);
+                counts = recount;
+                rebuildingCounts = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onPersonsSeeded(PersonsSeededEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonsCreated(PersonsCreatedEvent event) {
+        swapLock.readLock().lock();
+        try {
+            var currentCounts = counts;
+            var pendingCounts = rebuildingCounts;
+            for (Person person : event.persons()) {
+                currentCounts.add(person.getDateOfBirth(), person.getEmailDomain());
+                if (pendingCounts != null) {
+                    pendingCounts.add(person.getDateOfBirth(), person.getEmailDomain());
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public List<AgeBucketCount> countByAgeBuckets(int fromAge, int toAge, int bucketSize) {
+        if (fromAge < 0 || toAge < fromAge || bucketSize < 1 || (toAge - fromAge) / bucketSize >= MAXIMUM_BUCKETS) {
+            throw new PersonQueryException(String.format(
+                    "The age buckets must cover 0 <= fromAge <= toAge with a bucket size of at least 1 and at most %d buckets.",
+                    MAXIMUM_BUCKETS
+            ));
+        }
+
+        var currentCounts = counts;
+        var today = LocalDate.now();
+        int bucketCount = (toAge - fromAge) / bucketSize + 1;
+        List<AgeBucketCount> buckets = new ArrayList<>(bucketCount);
+        // ages near Integer.MAX_VALUE would overflow when stepping from bucket to bucket in int
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int bucketFromAge = (int) (fromAge + (long) bucket * bucketSize);
+            int bucketToAge = (int) Math.min(bucketFromAge + (long) bucketSize - 1, toAge);
+            long count = currentCounts.countBornWithin(DateOfBirthRange.forAgeRange(bucketFromAge, bucketToAge, today));
+            buckets.add(new AgeBucketCount(bucketFromAge, bucketToAge, count));
+        }
+        return buckets;
+    }
+
+    public Map<String, Long> countByEmailDomain() {
+        Map<String, Long> domainCounts = new TreeMap<>();
+        counts.domains.forEach((emailDomain, count) -> domainCounts.put(emailDomain, count.sum()));
+        return domainCounts;
+    }
+
+    public List<EmailDomainCount> topEmailDomains(int limit) {
+        if (limit < 1 || limit > MAXIMUM_TOP_DOMAINS) {
+            throw new PersonQueryException(String.format("The limit must be between 1 and %d.", MAXIMUM_TOP_DOMAINS));
+        }
+
+        Comparator<EmailDomainCount> byCount = Comparator.comparingLong(EmailDomainCount::count)
+                .thenComparing(EmailDomainCount::emailDomain, Comparator.reverseOrder());
+        PriorityQueue<EmailDomainCount> top = new PriorityQueue<>(limit + 1, byCount);
+        counts.domains.forEach((emailDomain, count) -> {
+            top.add(new EmailDomainCount(emailDomain, count.sum()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        return top.stream().sorted(byCount.reversed()).toList();
+    }
+
+    private static final class Counts {
+
+        // every day a living person could have been born on, the outermost days also count everybody beyond them
+        private static final long FIRST_DAY = LocalDate.of(1800, 1, 1).toEpochDay();
+        private static final int DAYS = (int) (LocalDate.of(2200, 1, 1).toEpochDay() - FIRST_DAY);
+
+        private final AtomicLongArray birthdays = new AtomicLongArray(DAYS + 1);
+        private final Map<String, LongAdder> domains = new ConcurrentHashMap<>();
+
+        static Counts of(List<DateOfBirthCount> dateOfBirthCounts, List<EmailDomainCount> emailDomainCounts) {
+            var counts = new Counts();
+            for (var dateOfBirthCount : dateOfBirthCounts) {
+                int index = indexOf(dateOfBirthCount.dateOfBirth());
+                counts.birthdays.set(index, counts.birthdays.get(index) + dateOfBirthCount.count());
+            }
+            // turn the per-day counts into a Fenwick tree in linear time
+            for (int index = 1; index <= DAYS; index++) {
+                int parent = index + (index & -index);
+                if (parent <= DAYS) {
+                    counts.birthdays.set(parent, counts.birthdays.get(parent) + counts.birthdays.get(index));
+                }
+            }
+            for (var emailDomainCount : emailDomainCounts) {
+                counts.domains.computeIfAbsent(emailDomainCount.emailDomain(), ignored -> new LongAdder())
+                        .add(emailDomainCount.count());
+            }
+            return counts;
+        }
+
+        // Fenwick trees over the same days add up element by element
+        void addAll(Counts other) {
+            for (int index = 1; index <= DAYS; index++) {
+                birthdays.addAndGet(index, other.birthdays.get(index));
+            }
+            other.domains.forEach((emailDomain, count) ->
+                    domains.computeIfAbsent(emailDomain, ignored -> new LongAdder()).add(count.sum()));
+        }
+
+        void add(LocalDate dateOfBirth, String emailDomain) {
+            for (int index = indexOf(dateOfBirth); index <= DAYS; index += index & -index) {
+                birthdays.incrementAndGet(index);
+            }
+            domains.computeIfAbsent(emailDomain, ignored -> new LongAdder()).increment();
+        }
+
+        long countBornWithin(DateOfBirthRange range) {
+            return countBornOnOrBefore(range.bornOnOrBefore()) - countBornOnOrBefore(range.bornAfter());
+        }
+
+        private long countBornOnOrBefore(LocalDate dateOfBirth) {
+            long count = 0;
+            for (int index = indexOf(dateOfBirth); index > 0; index -= index & -index) {
+                count += birthdays.get(index);
+            }
+            return count;
+        }
+
+        private static int indexOf(LocalDate dateOfBirth) {
+            return (int) Math.clamp(dateOfBirth.toEpochDay() - FIRST_DAY + 1, 1, DAYS);
+        }
+    }
+}
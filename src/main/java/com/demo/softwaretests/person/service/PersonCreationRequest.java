@@ -0,0 +1,6 @@
+package com.demo.softwaretests.person.service;
+
+import java.time.LocalDate;
+
+public record PersonCreationRequest(String firstName, String lastName, String email, LocalDate dateOfBirth) {
+}
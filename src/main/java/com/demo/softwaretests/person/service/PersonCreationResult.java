@@ -0,0 +1,15 @@
+package com.demo.softwaretests.person.service;
+
+/**
+ * Outcome of one item of a bulk creation; {@code reason} is only set for rejected items.
+ */
+public record PersonCreationResult(String email, boolean created, String reason) {
+
+    public static PersonCreationResult created(String email) {
+        return new PersonCreationResult(email, true, null);
+    }
+
+    public static PersonCreationResult rejected(String email, String reason) {
+        return new PersonCreationResult(email, false, reason);
+    }
+}
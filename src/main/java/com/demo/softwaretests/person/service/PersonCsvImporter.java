@@ -0,0 +1,360 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.PersonImport;
+import com.demo.softwaretests.person.entity.PersonImportShard;
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonImportRepository;
+import com.demo.softwaretests.person.repository.PersonImportShardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Streams persons from a CSV file with the header {@code firstName,lastName,email,dateOfBirth} (in any order)
+ * into the database. Rows are parsed one at a time and inserted through {@link PersonService#createPersons}
+ * in chunks of {@code batchSize} rows; every chunk commits together with the import's checkpoint,
+ * so an interrupted import resumes with the first row that was not committed yet.
+ * When sharded, every shard commits its share of a chunk on its own, together with a {@link PersonImportShard}
+ * checkpoint; a resumed import replays the last chunk without the shards that committed it already.
+ */
+@Service
+public class PersonCsvImporter {
+
+    public static final int MAXIMUM_REPORTED_REJECTIONS = 1000;
+    private static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final List<String> COLUMNS = List.of("firstname", "lastname", "email", "dateofbirth");
+
+    private final PersonService personService;
+    private final PersonImportRepository personImportRepository;
+    private final PersonImportShardRepository personImportShardRepository;
+    private final PersonShards personShards;
+    private final TransactionTemplate transaction;
+    private final int defaultBatchSize;
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    public PersonCsvImporter(
+            PersonService personService,
+            PersonImportRepository personImportRepository,
+            PersonImportShardRepository personImportShardRepository,
+            PersonShards personShards,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${persons.csv-import.batch-size:1000}") int defaultBatchSize
+    ) {
+        this.personService = personService;
+        this.personImportRepository = personImportRepository;
+        this.personImportShardRepository = personImportShardRepository;
+        this.personShards = personShards;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.defaultBatchSize = defaultBatchSize;
+
+        this.importedRows = rowCounter(meterRegistry, "imported");
+        this.rejectedRows = rowCounter(meterRegistry, "rejected");
+    }
+
+    public Optional<PersonImport> findImport(String importId) {
+        return personImportRepository.findById(importId);
+    }
+
+    public PersonImportReport importCsv(String importId, InputStream csv, Integer batchSize) throws IOException {
+        validateImportId(importId);
+        int chunkSize = batchSize == null ? defaultBatchSize : batchSize;
+        validateBatchSize(chunkSize);
+
+        var checkpoint = start(importId);
+        if (checkpoint.getStatus() == PersonImport.Status.COMPLETED) {
+            return toReport(checkpoint, 0, 0, List.of());
+        }
+
+        try {
+            return run(checkpoint, new CsvRecordReader(new InputStreamReader(csv, StandardCharsets.UTF_8)), chunkSize);
+        } catch (OptimisticLockingFailureException exception) {
+            throw new PersonCreationException(String.format("The import: %s is already running.", importId));
+        } catch (IOException | RuntimeException exception) {
+            transaction.executeWithoutResult(status -> personImportRepository.findById(importId)
+                    .ifPresent(failed -> failed.setStatus(PersonImport.Status.FAILED)));
+            throw exception;
+        }
+    }
+
+    private PersonImport start(String importId) {
+        if (personImportRepository.findById(importId).isEmpty()) {
+            // left behind by an earlier import under the same id whose checkpoint was deleted
+            personShards.forEachShard(() -> personImportShardRepository.deleteById(importId));
+        }
+
+        return transaction.execute(status -> {
+            var checkpoint = personImportRepository.findById(importId).orElseGet(() -> new PersonImport(importId));
+            if (checkpoint.getStatus() != PersonImport.Status.COMPLETED) {
+                checkpoint.setStatus(PersonImport.Status.RUNNING);
+            }
+            return personImportRepository.save(checkpoint);
+        });
+    }
+
+    private PersonImportReport run(PersonImport checkpoint, CsvRecordReader reader, int chunkSize) throws IOException {
+        long startedAt = System.nanoTime();
+        long rowsToSkip = checkpoint.getProcessedRows();
+        var committedShards = findShardsAhead(checkpoint.getId(), rowsToSkip);
+        long replayedChunkEnd = committedShards.values().stream().mapToLong(PersonImportShard::getChunkEndRow).max().orElse(0);
+        var columnIndexes = readHeader(reader);
+        var chunk = new Chunk(chunkSize);
+        List<PersonImportReport.Rejection> rejections = new ArrayList<>();
+        long row = 0;
+
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            if (fields.size() == 1 && fields.getFirst().isBlank() || ++row <= rowsToSkip) {
+                continue;
+            }
+            chunk.add(reader.recordLine(), fields, columnIndexes);
+            // the replayed chunk has to end where it ended before, even if the batch size changed
+            if (row == replayedChunkEnd || row > replayedChunkEnd && chunk.isFull()) {
+                checkpoint = commit(checkpoint, chunk, row, committedShards, rejections);
+                committedShards = Map.of();
+            }
+        }
+        checkpoint = commit(checkpoint, chunk, row, committedShards, rejections);
+
+        var completed = checkpoint;
+        completed.setStatus(PersonImport.Status.COMPLETED);
+        checkpoint = transaction.execute(status -> personImportRepository.save(completed));
+
+        long processedRows = Math.max(0, row - rowsToSkip);
+        double elapsedSeconds = Math.max(System.nanoTime() - startedAt, 1) / 1e9;
+        return toReport(checkpoint, Math.min(row, rowsToSkip), processedRows / elapsedSeconds, rejections);
+    }
+
+    private PersonImport commit(
+            PersonImport checkpoint,
+            Chunk chunk,
+            long chunkEndRow,
+            Map<Integer, PersonImportShard> committedShards,
+            List<PersonImportReport.Rejection> rejections
+    ) {
+        if (chunk.isEmpty()) {
+            return checkpoint;
+        }
+
+        // shards that committed the chunk already only contribute their counts
+        List<Integer> pending = new ArrayList<>(chunk.requests.size());
+        for (int i = 0; i < chunk.requests.size(); i++) {
+            if (!committedShards.containsKey(personShards.shardOf(chunk.requests.get(i).email()))) {
+                pending.add(i);
+            }
+        }
+        long committedRejections = committedShards.values().stream().mapToLong(PersonImportShard::getChunkRejectedRows).sum();
+
+        List<PersonImportReport.Rejection> chunkRejections = new ArrayList<>(chunk.rejections);
+        PersonImport committed = transaction.execute(status -> {
+            List<PersonCreationResult> results = personService.createPersons(
+                    pending.stream().map(chunk.requests::get).toList(),
+                    (shard, shardResults) -> recordShardChunk(checkpoint.getId(), chunkEndRow, shardResults)
+            );
+            for (int i = 0; i < results.size(); i++) {
+                var result = results.get(i);
+                if (!result.created()) {
+                    chunkRejections.add(new PersonImportReport.Rejection(
+                            chunk.requestLines.get(pending.get(i)), result.email(), result.reason()));
+                }
+            }
+            checkpoint.recordChunk(
+                    chunk.size() - chunkRejections.size() - committedRejections, chunkRejections.size() + committedRejections);
+            return personImportRepository.save(checkpoint);
+        });
+
+        long rejected = chunkRejections.size() + committedRejections;
+        importedRows.increment(chunk.size() - rejected);
+        rejectedRows.increment(rejected);
+        chunkRejections.stream()
+                .sorted(Comparator.comparingLong(PersonImportReport.Rejection::line))
+                .limit(Math.max(0, MAXIMUM_REPORTED_REJECTIONS - rejections.size()))
+                .forEach(rejections::add);
+        chunk.clear();
+        return committed;
+    }
+
+    private Map<Integer, PersonImportShard> findShardsAhead(String importId, long processedRows) {
+        List<Optional<PersonImportShard>> shardCheckpoints = personShards.onEveryShard(
+                () -> personImportShardRepository.findById(importId));
+        Map<Integer, PersonImportShard> ahead = new HashMap<>();
+        for (int shard = 0; shard < shardCheckpoints.size(); shard++) {
+            var shardCheckpoint = shardCheckpoints.get(shard);
+            if (shardCheckpoint.isPresent() && shardCheckpoint.get().getChunkEndRow() > processedRows) {
+                ahead.put(shard, shardCheckpoint.get());
+            }
+        }
+        return ahead;
+    }
+
+    private void recordShardChunk(String importId, long chunkEndRow, List<PersonCreationResult> results) {
+        var shardCheckpoint = personImportShardRepository.findById(importId).orElseGet(() -> new PersonImportShard(importId));
+        long imported = results.stream().filter(PersonCreationResult::created).count();
+        shardCheckpoint.recordChunk(chunkEndRow, imported, results.size() - imported);
+        personImportShardRepository.save(shardCheckpoint);
+    }
+
+    private static int[] readHeader(CsvRecordReader reader) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new PersonCreationException("The CSV file is empty.");
+        }
+
+        int[] columnIndexes = new int[COLUMNS.size()];
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            columnIndexes[column] = indexOf(header, COLUMNS.get(column));
+        }
+        return columnIndexes;
+    }
+
+    private static int indexOf(List<String> header, String column) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).strip().toLowerCase(Locale.ROOT).equals(column)) {
+                return i;
+            }
+        }
+        throw new PersonCreationException(
+                "The CSV header must contain the columns: firstName, lastName, email and dateOfBirth."
+        );
+    }
+
+    private static void validateImportId(String importId) {
+
+        if (!IMPORT_ID.matcher(importId).matches()) {
+
+            throw new PersonCreationException(
+                    "The import id must consist of 1 to 64 letters, digits, hyphens or underscores."
+            );
+        }
+    }
+
+    private static void validateBatchSize(int batchSize) {
+
+        if (batchSize < 1 || batchSize > PersonService.MAXIMUM_BULK_SIZE) {
+
+            throw new PersonCreationException(
+                    String.format("The batch size must be between 1 and %d.", PersonService.MAXIMUM_BULK_SIZE)
+            );
+        }
+    }
+
+    private static PersonImportReport toReport(
+            PersonImport checkpoint,
+            long skippedRows,
+            double rowsPerSecond,
+            List<PersonImportReport.Rejection> rejections
+    ) {
+        return new PersonImportReport(
+                checkpoint.getId(),
+                checkpoint.getStatus(),
+                checkpoint.getProcessedRows(),
+                checkpoint.getImportedRows(),
+                checkpoint.getRejectedRows(),
+                skippedRows,
+                rowsPerSecond,
+                rejections
+        );
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("persons.import.rows")
+                .description("CSV rows committed by person imports")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rows of the next transaction: parsed creation requests plus the rows that could not be parsed at all.
+     */
+    private static final class Chunk {
+
+        private final int capacity;
+        private final List<PersonCreationRequest> requests;
+        private final List<Long> requestLines;
+        private final List<PersonImportReport.Rejection> rejections = new ArrayList<>();
+
+        private Chunk(int capacity) {
+            this.capacity = capacity;
+            this.requests = new ArrayList<>(capacity);
+            this.requestLines = new ArrayList<>(capacity);
+        }
+
+        private void add(long line, List<String> fields, int[] columnIndexes) {
+            var email = field(fields, columnIndexes[2]);
+            if (fields.size() <= max(columnIndexes)) {
+                rejections.add(new PersonImportReport.Rejection(line, email, "The row is missing columns."));
+                return;
+            }
+
+            var dateOfBirth = field(fields, columnIndexes[3]);
+            try {
+                requests.add(new PersonCreationRequest(
+                        field(fields, columnIndexes[0]),
+                        field(fields, columnIndexes[1]),
+                        email,
+                        dateOfBirth == null ? null : LocalDate.parse(dateOfBirth)
+                ));
+                requestLines.add(line);
+            } catch (DateTimeParseException exception) {
+                rejections.add(new PersonImportReport.Rejection(
+                        line, email, String.format("The date of birth: %s is not a date like 1990-12-31.", dateOfBirth)
+                ));
+            }
+        }
+
+        private int size() {
+            return requests.size() + rejections.size();
+        }
+
+        private boolean isFull() {
+            return size() >= capacity;
+        }
+
+        private boolean isEmpty() {
+            return size() == 0;
+        }
+
+        private void clear() {
+            requests.clear();
+            requestLines.clear();
+            rejections.clear();
+        }
+
+        private static String field(List<String> fields, int index) {
+            if (index >= fields.size()) {
+                return null;
+            }
+            var value = fields.get(index).strip();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static int max(int[] values) {
+            int max = 0;
+            for (int value : values) {
+                max = Math.max(max, value);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.exception.PersonQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last person on a page: the sort key of the query plus the person id.
+ * Clients only ever see the encoded form and pass it back unchanged as the {@code after} parameter.
+ */
+public record PersonCursor(String sortKey, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        var raw = sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PersonCursor decode(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            return new PersonCursor(raw.substring(0, separatorIndex), Long.parseLong(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new PersonQueryException(String.format("The cursor: %s is invalid.", cursor));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.demo.softwaretests.person.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version of the person data, kept in a row of the {@code person_data_version} table on the primary database
+ * (on every shard when sharded), so every instance sharing the database reads the same version.
+ * Every creation bumps the version of its shard within its own transaction, so the bump commits with the persons,
+ * and every seeding bumps all of them.
+ * Tags combine the versions with a random epoch written when the row was created, so tags from before the database
+ * was recreated never match.
+ * Seeing a version this instance did not bump itself means another instance created persons: the query cache
+ * of this instance, which only knows about its own creations, is dropped, and reads wait for replicas that have them.
+ */
+@Component
+public class PersonDataVersion implements SmartInitializingSingleton {
+
+    private record Version(String epoch, long version) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final PersonQueryCache personQueryCache;
+    private final PersonShards personShards;
+    private final ReplicaReads replicaReads;
+    private volatile AtomicLongArray knownVersions = new AtomicLongArray(0);
+
+    public PersonDataVersion(
+            DataSource dataSource,
+            PersonQueryCache personQueryCache,
+            PersonShards personShards,
+            ReplicaReads replicaReads
+    ) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.personQueryCache = personQueryCache;
+        this.personShards = personShards;
+        this.replicaReads = replicaReads;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        personShards.forEachShard(this::createRow);
+        var versions = readAll();
+        var known = new AtomicLongArray(versions.size());
+        for (int shard = 0; shard < versions.size(); shard++) {
+            known.set(shard, versions.get(shard).version());
+        }
+        knownVersions = known;
+    }
+
+    private void createRow() {
+        jdbc.execute("create table if not exists person_data_version "
+                + "(id int primary key, epoch varchar(36) not null, version bigint not null)");
+        try {
+            jdbc.update("insert into person_data_version (id, epoch, version) "
+                    + "select 1, ?, 0 where not exists (select 1 from person_data_version where id = 1)",
+                    UUID.randomUUID().toString().substring(0, 8));
+        } catch (DuplicateKeyException e) {
+            // another instance inserted the row first
+        }
+    }
+
+    /**
+     * Returns a tag that changes whenever persons are created on any instance; read it before querying,
+     * so a creation racing with the query leaves the response with an already outdated tag.
+     */
+    public String tag() {
+        var versions = readAll();
+        var known = knownVersions;
+        var tag = new StringJoiner(".");
+        boolean changedElsewhere = false;
+        for (int shard = 0; shard < versions.size(); shard++) {
+            var current = versions.get(shard);
+            long knownVersion = known.get(shard);
+            if (current.version() > knownVersion && known.compareAndSet(shard, knownVersion, current.version())) {
+                changedElsewhere = true;
+            }
+            tag.add(current.epoch() + "-" + current.version());
+        }
+        if (changedElsewhere) {
+            replicaReads.onPersonsCreatedElsewhere();
+            personQueryCache.invalidateAll();
+        }
+        return tag.toString();
+    }
+
+    // published within the creating transaction, on the shard of its persons, so the bump adds no commit of its own
+    // and fails the creation rather than a request after it committed
+    @EventListener
+    public void onPersonsCreated(PersonsCreatedEvent event) {
+        int shard = personShards.shardOf(event.persons().getFirst().getEmailAddress());
+        jdbc.update("update person_data_version set version = version + 1 where id = 1");
+        long version = jdbc.queryForObject("select version from person_data_version where id = 1", Long.class);
+
+        // the query cache already handled this instance's own change, so only a jump past it marks a remote change
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    knownVersions.compareAndSet(shard, version - 1, version);
+                }
+            });
+        } else {
+            knownVersions.compareAndSet(shard, version - 1, version);
+        }
+    }
+
+    @EventListener
+    public void onPersonsSeeded(PersonsSeededEvent event) {
+        personShards.forEachShard(() -> jdbc.update("update person_data_version set version = version + 1 where id = 1"));
+    }
+
+    private List<Version> readAll() {
+        return personShards.onEveryShard(() -> jdbc.queryForObject(
+                "select epoch, version from person_data_version where id = 1",
+                (resultSet, row) -> new Version(resultSet.getString("epoch"), resultSet.getLong("version"))));
+    }
+}
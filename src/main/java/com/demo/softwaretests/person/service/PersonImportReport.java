@@ -0,0 +1,25 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.PersonImport;
+
+import java.util.List;
+
+/**
+ * Outcome of one run of a CSV import. The row counts cover all runs of the import,
+ * {@code skippedRows} and {@code rowsPerSecond} only this one, and {@code rejections} lists at most
+ * {@link PersonCsvImporter#MAXIMUM_REPORTED_REJECTIONS} rejected rows of this run.
+ */
+public record PersonImportReport(
+        String importId,
+        PersonImport.Status status,
+        long processedRows,
+        long importedRows,
+        long rejectedRows,
+        long skippedRows,
+        double rowsPerSecond,
+        List<Rejection> rejections
+) {
+
+    public record Rejection(long line, String email, String reason) {
+    }
+}
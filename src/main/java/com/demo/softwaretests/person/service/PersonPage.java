@@ -0,0 +1,11 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.repository.PersonView;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query. {@code nextCursor} is {@code null} on the last page.
+ */
+public record PersonPage(List<PersonView> persons, String nextCursor) {
+}
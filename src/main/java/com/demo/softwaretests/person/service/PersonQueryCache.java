@@ -0,0 +1,153 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the paginated age-range and email-domain queries, bounded by the number of cached persons
+ * and by age. Age ranges are keyed by their date-of-birth range, so cached pages roll over at midnight.
+ * Creating a person only evicts the queries whose result it could change.
+ * Queries run on the calling thread outside of any cache lock, so concurrent misses for the same key wait
+ * for a single load without pinning virtual threads to their carrier; {@code persons.query.coalesced} counts
+ * the queries that joined such an in-flight load instead of running their own.
+ */
+@Component
+public class PersonQueryCache {
+
+    public sealed interface Key {
+
+        boolean isAffectedBy(CreatedPersons createdPersons);
+    }
+
+    public record DateOfBirthRangeKey(DateOfBirthRange dateOfBirthRange, int limit, String after) implements Key {
+
+        @Override
+        public boolean isAffectedBy(CreatedPersons createdPersons) {
+            LocalDate earliestDateOfBirthInRange = createdPersons.datesOfBirth().higher(dateOfBirthRange.bornAfter());
+            return earliestDateOfBirthInRange != null && dateOfBirthRange.contains(earliestDateOfBirthInRange);
+        }
+    }
+
+    public record EmailDomainKey(String emailDomain, int limit, String after) implements Key {
+
+        @Override
+        public boolean isAffectedBy(CreatedPersons createdPersons) {
+            return createdPersons.emailDomains().contains(emailDomain);
+        }
+    }
+
+    record CreatedPersons(NavigableSet<LocalDate> datesOfBirth, Set<String> emailDomains) {
+
+        static CreatedPersons of(List<Person> persons) {
+            NavigableSet<LocalDate> datesOfBirth = new TreeSet<>();
+            Set<String> emailDomains = new HashSet<>();
+            for (var person : persons) {
+                datesOfBirth.add(person.getDateOfBirth());
+                emailDomains.add(person.getEmailDomain());
+            }
+            return new CreatedPersons(datesOfBirth, emailDomains);
+        }
+    }
+
+    private final AsyncCache<Key, PersonPage> cache;
+    private final Counter invalidations;
+    private final Counter coalescedQueries;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PersonQueryCache(
+            MeterRegistry meterRegistry,
+            @Value("${persons.query-cache.maximum-persons:100000}") long maximumPersons,
+            @Value("${persons.query-cache.expire-after-write:30s}") Duration expireAfterWrite
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumPersons)
+                .<Key, PersonPage>weigher((key, page) -> page.persons().size() + 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        this.invalidations = Counter.builder("persons.query.cache.invalidations")
+                .description("Cached queries evicted because a created person falls into them")
+                .register(meterRegistry);
+        this.coalescedQueries = Counter.builder("persons.query.coalesced")
+                .description("Queries that waited for an identical query already running instead of running their own")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "persons.queries");
+    }
+
+    public PersonPage get(Key key, Supplier<PersonPage> loader) {
+        long generationBeforeLoad = generation.get();
+        var load = new CompletableFuture<PersonPage>();
+        CompletableFuture<PersonPage> page = cache.get(key, (ignored, executor) -> load);
+        if (page == load) {
+            try {
+                load.complete(loader.get());
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+        } else if (!page.isDone()) {
+            coalescedQueries.increment();
+        }
+
+        // a person created while the query was running may be missing from the loaded page
+        if (generation.get() != generationBeforeLoad) {
+            cache.synchronous().invalidate(key);
+        }
+        return join(page);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.synchronous().invalidateAll();
+    }
+
+    @EventListener
+    public void onPersonsSeeded(PersonsSeededEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonsCreated(PersonsCreatedEvent event) {
+        generation.incrementAndGet();
+        var createdPersons = CreatedPersons.of(event.persons());
+        cache.asMap().keySet().removeIf(key -> {
+            boolean affected = key.isAffectedBy(createdPersons);
+            if (affected) {
+                invalidations.increment();
+            }
+            return affected;
+        });
+    }
+
+    private static PersonPage join(CompletableFuture<PersonPage> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
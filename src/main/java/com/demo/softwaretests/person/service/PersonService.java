@@ -2,41 +2,263 @@ package com.demo.softwaretests.person.service;
 
 import com.demo.softwaretests.person.entity.Person;
 import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.exception.PersonQueryException;
 import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class PersonService {
 
     private static final int MINIMUM_AGE = 18;
+    private static final int MAXIMUM_PAGE_SIZE = 1000;
+    static final int MAXIMUM_BULK_SIZE = 10_000;
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final String MISSING_FIELDS_MESSAGE = "First name, last name, email and date of birth are required.";
+    private static final String SHARD_FAILED_MESSAGE = "The database shard of this person failed, so it was not created.";
+    private static final Comparator<PersonView> BY_ID = Comparator.comparingLong(PersonView::id);
+    private static final Comparator<PersonView> BY_DATE_OF_BIRTH_DESCENDING = Comparator
+            .comparing(PersonView::dateOfBirth, Comparator.reverseOrder())
+            .thenComparing(BY_ID.reversed());
 
     private final PersonRepository personRepository;
+    private final EntityManager entityManager;
+    private final EmailAddressBloomFilter emailAddressFilter;
+    private final PersonQueryCache personQueryCache;
+    private final PersonAgeIndex personAgeIndex;
+    private final PersonWriteBuffer personWriteBuffer;
+    private final ReplicaReads replicaReads;
+    private final PersonShards personShards;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(
+            PersonRepository personRepository,
+            EntityManager entityManager,
+            EmailAddressBloomFilter emailAddressFilter,
+            PersonQueryCache personQueryCache,
+            PersonAgeIndex personAgeIndex,
+            PersonWriteBuffer personWriteBuffer,
+            ReplicaReads replicaReads,
+            PersonShards personShards,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.personRepository = personRepository;
+        this.entityManager = entityManager;
+        this.emailAddressFilter = emailAddressFilter;
+        this.personQueryCache = personQueryCache;
+        this.personAgeIndex = personAgeIndex;
+        this.personWriteBuffer = personWriteBuffer;
+        this.replicaReads = replicaReads;
+        this.personShards = personShards;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Person> getAllPersonsByEmailDomain(String domain) {
-        return personRepository.findAllByEmailAddressEndsWith(domain);
+    public PersonPage getAllPersonsByEmailDomain(String domain, int limit, String after) {
+        validatePageSize(limit);
+        var emailDomain = Person.toEmailDomain(domain);
+
+        return personQueryCache.get(
+                new PersonQueryCache.EmailDomainKey(emailDomain, limit, after),
+                () -> replicaReads.onReplica(() -> findPageByEmailDomain(emailDomain, limit, after))
+        );
+    }
+
+    public PersonPage getAllPersonsByAgeRange(int fromAge, int toAge, int limit, String after) {
+        validatePageSize(limit);
+        var dateOfBirthRange = DateOfBirthRange.forAgeRange(fromAge, toAge, LocalDate.now());
+
+        return personQueryCache.get(
+                new PersonQueryCache.DateOfBirthRangeKey(dateOfBirthRange, limit, after),
+                () -> replicaReads.onReplica(() -> findPageByDateOfBirthRange(dateOfBirthRange, limit, after))
+        );
+    }
+
+    /**
+     * Checks the parameters of {@link #getAllPersonsByEmailDomain} without querying, so a conditional request
+     * is rejected before it can be answered with {@code 304 Not Modified}.
+     */
+    public void validateEmailDomainQuery(String domain, int limit, String after) {
+        validatePageSize(limit);
+        emailDomainAfterId(Person.toEmailDomain(domain), after);
+    }
+
+    /**
+     * Checks the parameters of {@link #getAllPersonsByAgeRange} without querying; ages out of range are clamped
+     * and never rejected.
+     */
+    public void validateAgeRangeQuery(int fromAge, int toAge, int limit, String after) {
+        validatePageSize(limit);
+        if (after != null) {
+            parseDateOfBirth(PersonCursor.decode(after), after);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllPersonsByEmailDomain(String domain, Consumer<PersonView> consumer) {
+        var emailDomain = Person.toEmailDomain(domain);
+        personShards.streamFromEveryShard(() -> personRepository.streamAllByEmailDomain(emailDomain), BY_ID, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllPersonsByAgeRange(int fromAge, int toAge, Consumer<PersonView> consumer) {
+        var dateOfBirthRange = DateOfBirthRange.forAgeRange(fromAge, toAge, LocalDate.now());
+
+        personShards.streamFromEveryShard(
+                () -> personRepository.streamAllByDateOfBirthRange(dateOfBirthRange.bornAfter(), dateOfBirthRange.bornOnOrBefore()),
+                BY_DATE_OF_BIRTH_DESCENDING,
+                consumer
+        );
     }
 
-    public List<Person> getAllPersonsByAgeRange(int fromAge, int toAge) {
-        return personRepository.findAllByAgeBetween(fromAge, toAge);
+    /**
+     * Streams the whole person table in id order from a single forward-only cursor, for full exports.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllPersons(Consumer<PersonView> consumer) {
+        personShards.streamFromEveryShard(personRepository::streamAllOrderedById, BY_ID, consumer);
     }
 
     public void createPerson(String firstName, String lastName, String email, LocalDate dateOfBirth) {
-        validateParameters(dateOfBirth, email);
+        validateAge(dateOfBirth);
 
-        var person = new Person();
-        person.setFullName(firstName + " " + lastName);
-        person.setEmailAddress(email);
-        person.setAge(calculateAge(dateOfBirth, LocalDate.now()));
+        if (personWriteBuffer.isEnabled()) {
+            personWriteBuffer.createPerson(new PersonCreationRequest(firstName, lastName, email, dateOfBirth));
+            return;
+        }
 
-        personRepository.save(person);
+        var person = buildPerson(firstName, lastName, email, dateOfBirth);
+        try {
+            // listeners writing along with the creation, like the data version, commit with it
+            personShards.inTransactionOnShard(personShards.shardOf(email), () -> {
+                personRepository.saveAndFlush(person);
+                eventPublisher.publishEvent(new PersonsCreatedEvent(List.of(person)));
+                return null;
+            });
+        } catch (DataIntegrityViolationException exception) {
+            if (isEmailAddressViolation(exception)) {
+                throw new PersonCreationException(emailInUseMessage(email));
+            }
+            throw exception;
+        }
+    }
+
+    @Transactional
+    public List<PersonCreationResult> createPersons(List<PersonCreationRequest> requests) {
+        return createPersons(requests, (shard, results) -> {
+        });
+    }
+
+    /**
+     * Creates the persons and runs {@code inShardTransaction} with every shard's results inside the transaction
+     * committing that shard's persons, so callers can record their progress atomically with them; without sharding
+     * it runs once, for shard 0, in the caller's transaction.
+     * A failing shard rolls back its own persons only, they are rejected while the other shards keep theirs.
+     */
+    @Transactional
+    public List<PersonCreationResult> createPersons(
+            List<PersonCreationRequest> requests,
+            BiConsumer<Integer, List<PersonCreationResult>> inShardTransaction
+    ) {
+
+        if (requests.size() > MAXIMUM_BULK_SIZE) {
+
+            throw new PersonCreationException(
+                    String.format("At most %d persons can be created at once.", MAXIMUM_BULK_SIZE)
+            );
+        }
+
+        if (!personShards.isEnabled()) {
+            var results = insertPersons(requests);
+            inShardTransaction.accept(0, results);
+            return results;
+        }
+
+        // every shard commits its share on its own, this transaction never touches a database
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByShard.computeIfAbsent(personShards.shardOf(requests.get(i).email()), ignored -> new ArrayList<>()).add(i);
+        }
+
+        var results = new PersonCreationResult[requests.size()];
+        indexesByShard.forEach((shard, indexes) -> {
+            var shardRequests = indexes.stream().map(requests::get).toList();
+            List<PersonCreationResult> shardResults;
+            try {
+                shardResults = personShards.inTransactionOnShard(shard, () -> {
+                    var inserted = insertPersons(shardRequests);
+                    inShardTransaction.accept(shard, inserted);
+                    return inserted;
+                });
+            } catch (DataAccessException | PersistenceException | TransactionException exception) {
+                shardResults = shardRequests.stream()
+                        .map(request -> PersonCreationResult.rejected(request.email(), SHARD_FAILED_MESSAGE))
+                        .toList();
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = shardResults.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<PersonCreationResult> insertPersons(List<PersonCreationRequest> requests) {
+        var today = LocalDate.now();
+        Set<String> emailAddressesInUse = findEmailAddressesInUse(requests);
+        List<PersonCreationResult> results = new ArrayList<>(requests.size());
+        List<Person> persons = new ArrayList<>(requests.size());
+
+        for (var request : requests) {
+            var email = request.email();
+
+            if (request.firstName() == null || request.lastName() == null || email == null || request.dateOfBirth() == null) {
+                results.add(PersonCreationResult.rejected(email, MISSING_FIELDS_MESSAGE));
+            } else if (calculateAge(request.dateOfBirth(), today) < MINIMUM_AGE) {
+                results.add(PersonCreationResult.rejected(email, minimumAgeMessage()));
+            } else if (!emailAddressesInUse.add(email)) {
+                results.add(PersonCreationResult.rejected(email, emailInUseMessage(email)));
+            } else {
+                persons.add(buildPerson(request.firstName(), request.lastName(), email, request.dateOfBirth()));
+                results.add(PersonCreationResult.created(email));
+            }
+        }
+
+        for (int from = 0; from < persons.size(); from += BULK_CHUNK_SIZE) {
+            personRepository.saveAll(persons.subList(from, Math.min(from + BULK_CHUNK_SIZE, persons.size())));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        if (!persons.isEmpty()) {
+            eventPublisher.publishEvent(new PersonsCreatedEvent(persons));
+        }
+
+        return results;
     }
 
     public int calculateAge(LocalDate startDate, LocalDate endDate) {
@@ -46,18 +268,184 @@ public class PersonService {
 
     public void validateParameters(LocalDate dateOfBirth, String emailAddress) {
 
+        validateAge(dateOfBirth);
+
+        if (emailAddress == null) {
+
+            throw new PersonCreationException(MISSING_FIELDS_MESSAGE);
+        }
+
+        if (isEmailAddressInUse(emailAddress)) {
+
+            throw new PersonCreationException(emailInUseMessage(emailAddress));
+        }
+    }
+
+    private void validateAge(LocalDate dateOfBirth) {
+
         if (calculateAge(dateOfBirth, LocalDate.now()) < MINIMUM_AGE) {
 
-            throw new PersonCreationException(
-                    String.format("The minimum required age is %d.", MINIMUM_AGE)
-            );
+            throw new PersonCreationException(minimumAgeMessage());
         }
+    }
 
-        if (personRepository.existsByEmailAddress(emailAddress)) {
+    private boolean isEmailAddressInUse(String emailAddress) {
+        if (!emailAddressFilter.mightContain(emailAddress)) {
+            return false;
+        }
 
-            throw new PersonCreationException(
-                    String.format("The email address: %s is already in use.", emailAddress)
+        boolean inUse = personShards.onShard(
+                personShards.shardOf(emailAddress), () -> personRepository.existsByEmailAddress(emailAddress));
+        emailAddressFilter.recordConfirmations(1, inUse ? 1 : 0);
+        return inUse;
+    }
+
+    static boolean isEmailAddressViolation(DataIntegrityViolationException exception) {
+        // H2 reports the backing index, e.g. PUBLIC.UK_PERSON_EMAIL_ADDRESS_INDEX_8, rather than the bare constraint name
+        return exception.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Person.EMAIL_ADDRESS_CONSTRAINT);
+    }
+
+    Person buildPerson(String firstName, String lastName, String email, LocalDate dateOfBirth) {
+        var person = new Person();
+        person.setFullName(firstName + " " + lastName);
+        person.setEmailAddress(email);
+        person.setDateOfBirth(dateOfBirth);
+        return person;
+    }
+
+    private Set<String> findEmailAddressesInUse(List<PersonCreationRequest> requests) {
+        List<String> possiblyUsedEmailAddresses = requests.stream()
+                .map(PersonCreationRequest::email)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(emailAddressFilter::mightContain)
+                .toList();
+
+        Set<String> emailAddressesInUse = new HashSet<>();
+        for (int from = 0; from < possiblyUsedEmailAddresses.size(); from += BULK_CHUNK_SIZE) {
+            emailAddressesInUse.addAll(personRepository.findEmailAddressesIn(
+                    possiblyUsedEmailAddresses.subList(from, Math.min(from + BULK_CHUNK_SIZE, possiblyUsedEmailAddresses.size()))
+            ));
+        }
+        emailAddressFilter.recordConfirmations(possiblyUsedEmailAddresses.size(), emailAddressesInUse.size());
+        return emailAddressesInUse;
+    }
+
+    private static String minimumAgeMessage() {
+        return String.format("The minimum required age is %d.", MINIMUM_AGE);
+    }
+
+    static String emailInUseMessage(String emailAddress) {
+        return String.format("The email address: %s is already in use.", emailAddress);
+    }
+
+    private PersonPage findPageByEmailDomain(String emailDomain, int limit, String after) {
+        long afterId = emailDomainAfterId(emailDomain, after);
+
+        List<PersonView> persons = personShards.mergeFromEveryShard(
+                () -> personRepository.findPageByEmailDomain(emailDomain, afterId, Limit.of(limit + 1)), BY_ID, limit + 1);
+        return toPage(persons, limit, person -> new PersonCursor(person.emailDomain(), person.id()));
+    }
+
+    private PersonPage findPageByDateOfBirthRange(DateOfBirthRange dateOfBirthRange, int limit, String after) {
+        var afterDateOfBirth = dateOfBirthRange.bornOnOrBefore().plusDays(1);
+        long afterId = 0;
+        if (after != null) {
+            var cursor = PersonCursor.decode(after);
+            afterDateOfBirth = parseDateOfBirth(cursor, after);
+            afterId = cursor.id();
+        }
+
+        var pageAfterDateOfBirth = afterDateOfBirth;
+        long pageAfterId = afterId;
+        List<PersonView> persons = personAgeIndex.isEnabled()
+                ? findIndexedByDateOfBirthRange(dateOfBirthRange, afterDateOfBirth, afterId, limit + 1)
+                : personShards.mergeFromEveryShard(() -> personRepository.findPageByDateOfBirthRange(
+                        dateOfBirthRange.bornAfter(),
+                        dateOfBirthRange.bornOnOrBefore(),
+                        pageAfterDateOfBirth,
+                        pageAfterId,
+                        Limit.of(limit + 1)
+                ), BY_DATE_OF_BIRTH_DESCENDING, limit + 1);
+        return toPage(persons, limit, person -> new PersonCursor(person.dateOfBirth().toString(), person.id()));
+    }
+
+    // ids of persons deleted behind the index's back find no row, so keep asking until the page is full
+    private List<PersonView> findIndexedByDateOfBirthRange(
+            DateOfBirthRange dateOfBirthRange,
+            LocalDate afterDateOfBirth,
+            long afterId,
+            int limit
+    ) {
+        List<PersonView> persons = new ArrayList<>(limit);
+        while (persons.size() < limit) {
+            var indexedIds = personAgeIndex.findIds(dateOfBirthRange, afterDateOfBirth, afterId, limit - persons.size());
+            if (indexedIds.isEmpty()) {
+                break;
+            }
+            persons.addAll(findViewsInOrder(indexedIds.ids()));
+            afterDateOfBirth = indexedIds.lastDateOfBirth();
+            afterId = indexedIds.ids()[indexedIds.ids().length - 1];
+        }
+        return persons;
+    }
+
+    private List<PersonView> findViewsInOrder(long[] ids) {
+        Map<Long, PersonView> personsById = new HashMap<>(ids.length * 2);
+        for (int from = 0; from < ids.length; from += BULK_CHUNK_SIZE) {
+            var batch = Arrays.stream(ids, from, Math.min(from + BULK_CHUNK_SIZE, ids.length)).boxed().toList();
+            personShards.onEveryShard(() -> personRepository.findViewsByIdIn(batch))
+                    .forEach(views -> views.forEach(person -> personsById.put(person.id(), person)));
+        }
+
+        List<PersonView> persons = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            var person = personsById.get(id);
+            if (person != null) {
+                persons.add(person);
+            }
+        }
+        return persons;
+    }
+
+    static long emailDomainAfterId(String emailDomain, String after) {
+        if (after == null) {
+            return 0;
+        }
+
+        var cursor = PersonCursor.decode(after);
+        if (!cursor.sortKey().equals(emailDomain)) {
+            throw new PersonQueryException(String.format("The cursor: %s does not belong to this query.", after));
+        }
+        return cursor.id();
+    }
+
+    static void validatePageSize(int limit) {
+
+        if (limit < 1 || limit > MAXIMUM_PAGE_SIZE) {
+
+            throw new PersonQueryException(
+                    String.format("The limit must be between 1 and %d.", MAXIMUM_PAGE_SIZE)
             );
         }
     }
+
+    static LocalDate parseDateOfBirth(PersonCursor cursor, String after) {
+        try {
+            return LocalDate.parse(cursor.sortKey());
+        } catch (DateTimeParseException exception) {
+            throw new PersonQueryException(String.format("The cursor: %s does not belong to this query.", after));
+        }
+    }
+
+    static PersonPage toPage(List<PersonView> persons, int limit, Function<PersonView, PersonCursor> cursorOf) {
+        if (persons.size() <= limit) {
+            return new PersonPage(persons, null);
+        }
+
+        List<PersonView> page = persons.subList(0, limit);
+        return new PersonPage(page, cursorOf.apply(page.getLast()).encode());
+    }
 }
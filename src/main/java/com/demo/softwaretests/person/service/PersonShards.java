@@ -0,0 +1,421 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.repository.ShardRoutingDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Places every person on one of the shards of a {@link ShardRoutingDataSource}, chosen by a jump consistent hash of
+ * the email address, so everything about one address is answered by a single shard. Queries by age or email domain
+ * run on every shard in parallel and are merged. Without sharding everything runs right away on the only database.
+ * <p>
+ * The person ids stay unique across shards: shard {@code k} of {@code n} only hands out the id blocks
+ * {@code k, k + n, k + 2n, ...} of {@link Person#ID_ALLOCATION_SIZE} ids each.
+ * Adding a shard moves about one in {@code n + 1} persons to it, which {@link #rebalance()} takes care of.
+ */
+@Component
+public class PersonShards {
+
+    public record ShardStatus(int shard, long persons) {
+    }
+
+    private record Head<T>(T row, int shard) {
+    }
+
+    private record Failure(RuntimeException exception) {
+    }
+
+    private static final Object END = new Object();
+    private static final int STREAM_BUFFER_SIZE = 512;
+    private static final String PERSON_COLUMNS = "id, full_name, email_address, email_domain, date_of_birth";
+
+    private final List<DataSource> shards;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate newTransaction;
+    private final List<JdbcTemplate> shardJdbc = new ArrayList<>();
+    private final List<TransactionTemplate> shardTransactions = new ArrayList<>();
+    private final int rebalanceBatchSize;
+    private final ExecutorService fanOut;
+
+    public PersonShards(
+            DataSource dataSource,
+            EntityManagerFactory entityManagerFactory,
+            PlatformTransactionManager transactionManager,
+            @Value("${persons.shards.rebalance-batch-size:1000}") int rebalanceBatchSize
+    ) {
+        this.shards = routingDataSourceOf(dataSource).map(ShardRoutingDataSource::getShards).orElse(List.of());
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebalanceBatchSize = rebalanceBatchSize;
+        this.fanOut = isEnabled() ? Executors.newVirtualThreadPerTaskExecutor() : null;
+
+        for (DataSource shard : shards) {
+            shardJdbc.add(new JdbcTemplate(shard));
+            shardTransactions.add(new TransactionTemplate(new DataSourceTransactionManager(shard)));
+        }
+        if (isEnabled()) {
+            initializeShards(entityManagerFactory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return !shards.isEmpty();
+    }
+
+    public int shardOf(String emailAddress) {
+        if (!isEnabled() || emailAddress == null) {
+            return 0;
+        }
+        return jumpConsistentHash(mix(emailAddress.hashCode()), shards.size());
+    }
+
+    /**
+     * Runs the query on the given shard. Transactions have to begin within the query to take their connection from it.
+     */
+    public <T> T onShard(int shard, Supplier<T> query) {
+        return isEnabled() ? ShardRoutingDataSource.onShard(shard, query) : query.get();
+    }
+
+    /**
+     * Runs the writes in a transaction of their own on the given shard, or in the caller's transaction without sharding,
+     * beginning one when there is none.
+     */
+    public <T> T inTransactionOnShard(int shard, Supplier<T> writes) {
+        return isEnabled()
+                ? ShardRoutingDataSource.onShard(shard, () -> newTransaction.execute(status -> writes.get()))
+                : transaction.execute(status -> writes.get());
+    }
+
+    /**
+     * Runs the action once per shard, one shard after the other.
+     */
+    public void forEachShard(Runnable action) {
+        if (!isEnabled()) {
+            action.run();
+            return;
+        }
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            ShardRoutingDataSource.onShard(shard, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs the query in a read-only transaction on every shard in parallel and returns the results in shard order.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> query) {
+        if (!isEnabled()) {
+            return Collections.singletonList(query.get());
+        }
+
+        List<CompletableFuture<T>> results = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int target = shard;
+            results.add(CompletableFuture.supplyAsync(() -> ShardRoutingDataSource.onShard(
+                    target, () -> readOnlyTransaction.execute(status -> query.get())), fanOut));
+        }
+
+        List<T> merged = new ArrayList<>(shards.size());
+        for (var result : results) {
+            try {
+                merged.add(result.join());
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw exception;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Runs a query for the first {@code limit} rows in the given order on every shard and returns the first
+     * {@code limit} rows of all of them. Keyset pagination carries over, as long as the order is total.
+     */
+    public <T> List<T> mergeFromEveryShard(Supplier<List<T>> query, Comparator<? super T> order, int limit) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+
+        return onEveryShard(query).stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Passes the rows of a query that streams in the given order on every shard to the consumer, merged in that order.
+     * Every shard streams on a thread of its own, at most {@value #STREAM_BUFFER_SIZE} rows ahead of the consumer.
+     */
+    public <T> void streamFromEveryShard(Supplier<Stream<T>> query, Comparator<? super T> order, Consumer<? super T> consumer) {
+        if (!isEnabled()) {
+            try (Stream<T> rows = query.get()) {
+                rows.forEach(consumer);
+            }
+            return;
+        }
+
+        List<BlockingQueue<Object>> queues = new ArrayList<>(shards.size());
+        List<Future<?>> producers = new ArrayList<>(shards.size());
+        try {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                int source = shard;
+                var queue = new ArrayBlockingQueue<>(STREAM_BUFFER_SIZE);
+                queues.add(queue);
+                producers.add(fanOut.submit(() -> stream(source, query, queue)));
+            }
+
+            PriorityQueue<Head<T>> heads = new PriorityQueue<>(shards.size(), (a, b) -> order.compare(a.row(), b.row()));
+            for (int shard = 0; shard < shards.size(); shard++) {
+                T row = take(queues.get(shard));
+                if (row != null) {
+                    heads.add(new Head<>(row, shard));
+                }
+            }
+            while (!heads.isEmpty()) {
+                var head = heads.poll();
+                consumer.accept(head.row());
+                T row = take(queues.get(head.shard()));
+                if (row != null) {
+                    heads.add(new Head<>(row, head.shard()));
+                }
+            }
+        } finally {
+            producers.forEach(producer -> producer.cancel(true));
+        }
+    }
+
+    /**
+     * Counts the persons per shard. Finding the misplaced ones takes hashing every address, which only
+     * {@link #rebalance()} does.
+     */
+    public List<ShardStatus> status() {
+        List<ShardStatus> status = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            status.add(new ShardStatus(shard, shardJdbc.get(shard).queryForObject("select count(*) from person", Long.class)));
+        }
+        return status;
+    }
+
+    /**
+     * Moves every person that hashes to another shard than the one it is stored on, e.g. after a shard was added,
+     * keeping its id. Every batch is first written to its new shard, replacing a copy a failed run left behind,
+     * and then deleted from its old one, so a person may briefly be found twice but is never lost.
+     * Creations of persons that are about to move are not detected as duplicates, so rebalance before taking writes.
+     *
+     * @return the number of persons moved
+     */
+    public long rebalance() {
+        long moved = 0;
+        for (int source = 0; source < shards.size(); source++) {
+            long afterId = 0;
+            List<PersonView> batch;
+            do {
+                batch = shardJdbc.get(source).query(
+                        "select " + PERSON_COLUMNS + " from person where id > ? order by id fetch first ? rows only",
+                        (resultSet, row) -> new PersonView(
+                                resultSet.getLong(1),
+                                resultSet.getString(2),
+                                resultSet.getString(3),
+                                resultSet.getString(4),
+                                resultSet.getObject(5, LocalDate.class)),
+                        afterId,
+                        rebalanceBatchSize
+                );
+                if (!batch.isEmpty()) {
+                    afterId = batch.getLast().id();
+                }
+
+                Map<Integer, List<PersonView>> misplaced = new TreeMap<>();
+                for (PersonView person : batch) {
+                    int target = shardOf(person.emailAddress());
+                    if (target != source) {
+                        misplaced.computeIfAbsent(target, ignored -> new ArrayList<>()).add(person);
+                    }
+                }
+                for (var move : misplaced.entrySet()) {
+                    move(move.getValue(), source, move.getKey());
+                    moved += move.getValue().size();
+                }
+            } while (batch.size() == rebalanceBatchSize);
+        }
+        return moved;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+    }
+
+    private void move(List<PersonView> persons, int source, int target) {
+        List<Object[]> ids = persons.stream().map(person -> new Object[]{person.id()}).toList();
+        shardTransactions.get(target).executeWithoutResult(status -> {
+            var jdbc = shardJdbc.get(target);
+            jdbc.batchUpdate("delete from person where id = ?", ids);
+            jdbc.batchUpdate(
+                    "insert into person (" + PERSON_COLUMNS + ") values (?, ?, ?, ?, ?)",
+                    persons.stream().map(person -> new Object[]{
+                            person.id(), person.fullName(), person.emailAddress(), person.emailDomain(), person.dateOfBirth()
+                    }).toList()
+            );
+        });
+        shardTransactions.get(source).executeWithoutResult(status ->
+                shardJdbc.get(source).batchUpdate("delete from person where id = ?", ids));
+    }
+
+    // the first shard got its schema from Hibernate on startup, the others get the same one
+    private void initializeShards(EntityManagerFactory entityManagerFactory) {
+        var schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        for (int shard = 1; shard < shards.size(); shard++) {
+            ShardRoutingDataSource.onShard(shard, () -> {
+                schemaManager.exportMappedObjects(true);
+                return null;
+            });
+        }
+
+        long stride = (long) Person.ID_ALLOCATION_SIZE * shards.size();
+        boolean striped = shardJdbc.stream().allMatch(jdbc -> Long.valueOf(stride).equals(jdbc.queryForObject(
+                "select increment from information_schema.sequences where lower(sequence_name) = 'person_seq'", Long.class)));
+        if (striped) {
+            return;
+        }
+
+        // Hibernate's pooled optimizer hands out the ids (value - allocation size, value] for every sequence value,
+        // so the sequence of shard k returns the values ending the blocks k, k + n, k + 2n, ... past the highest id yet
+        long highestId = shardJdbc.stream()
+                .mapToLong(jdbc -> jdbc.queryForObject("select coalesce(max(id), 0) from person", Long.class))
+                .max()
+                .orElse(0);
+        long firstRound = Math.ceilDiv(highestId, stride);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            long firstValue = (long) Person.ID_ALLOCATION_SIZE * (firstRound * shards.size() + shard + 1) + 1;
+            shardJdbc.get(shard).execute(
+                    "alter sequence person_seq restart with " + firstValue + " increment by " + stride);
+        }
+    }
+
+    private <T> void stream(int shard, Supplier<Stream<T>> query, BlockingQueue<Object> queue) {
+        try {
+            try {
+                ShardRoutingDataSource.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+                    try (Stream<T> rows = query.get()) {
+                        rows.forEach(row -> put(queue, row));
+                    }
+                    return null;
+                }));
+            } catch (RuntimeException exception) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                queue.put(new Failure(exception));
+                return;
+            }
+            queue.put(END);
+        } catch (InterruptedException exception) {
+            // the consumer stopped early
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object row) {
+        try {
+            queue.put(row);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PersonQueryException("The query was cancelled.");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T take(BlockingQueue<Object> queue) {
+        Object next;
+        try {
+            next = queue.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PersonQueryException("The query was interrupted.");
+        }
+        if (next == END) {
+            return null;
+        }
+        if (next instanceof Failure failure) {
+            throw failure.exception();
+        }
+        return (T) next;
+    }
+
+    private static Optional<ShardRoutingDataSource> routingDataSourceOf(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(ShardRoutingDataSource.class)
+                    ? Optional.of(dataSource.unwrap(ShardRoutingDataSource.class))
+                    : Optional.empty();
+        } catch (SQLException exception) {
+            return Optional.empty();
+        }
+    }
+
+    // Lamping and Veach: a key stays on its shard when shards are added, unless it moves to a new one
+    static int jumpConsistentHash(long key, int buckets) {
+        long bucket = -1;
+        long jump = 0;
+        while (jump < buckets) {
+            bucket = jump;
+            key = key * 2862933555777941757L + 1;
+            jump = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    // the murmur3 avalanche step, String.hashCode alone leaves similar addresses close together
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,32 @@
+package com.demo.softwaretests.person.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "shards")
+public class PersonShardsEndpoint {
+
+    private final PersonShards personShards;
+
+    public PersonShardsEndpoint(PersonShards personShards) {
+        this.personShards = personShards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        return Map.of(
+                "enabled", personShards.isEnabled(),
+                "shards", personShards.status()
+        );
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance() {
+        return Map.of("moved", personShards.rebalance());
+    }
+}
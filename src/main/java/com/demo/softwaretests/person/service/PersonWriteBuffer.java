@@ -0,0 +1,199 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opt-in group commit for single person creations, enabled with {@code persons.write-buffer.enabled}.
+ * Callers queue their request and wait while one writer thread inserts everything queued within
+ * {@code persons.write-buffer.max-delay}, up to {@code persons.write-buffer.max-batch-size} persons,
+ * through {@link PersonService#createPersons} in a single transaction. Every caller returns only after
+ * its batch committed, so concurrent creations share one commit without giving up durability.
+ * A full queue blocks further callers, and callers give up waiting after {@code persons.write-buffer.max-wait}:
+ * a request still queued by then is withdrawn, one the writer already took may still commit.
+ * Once the buffer is closed it rejects new requests; requests it can no longer write fail instead of waiting forever.
+ */
+@Component
+public class PersonWriteBuffer {
+
+    private record PendingCreation(PersonCreationRequest request, CompletableFuture<Void> created) {
+    }
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final ObjectProvider<PersonService> personService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Duration maxWait;
+    private final BlockingQueue<PendingCreation> queue;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    // PersonService depends on this buffer, so it is looked up lazily when the first batch is written
+    public PersonWriteBuffer(
+            ObjectProvider<PersonService> personService,
+            MeterRegistry meterRegistry,
+            @Value("${persons.write-buffer.enabled:false}") boolean enabled,
+            @Value("${persons.write-buffer.capacity:10000}") int capacity,
+            @Value("${persons.write-buffer.max-batch-size:500}") int maxBatchSize,
+            @Value("${persons.write-buffer.max-delay:5ms}") Duration maxDelay,
+            @Value("${persons.write-buffer.max-wait:30s}") Duration maxWait
+    ) {
+        this.personService = personService;
+        this.enabled = enabled;
+        this.maxBatchSize = Math.min(maxBatchSize, PersonService.MAXIMUM_BULK_SIZE);
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxWait = maxWait;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.batchSizes = DistributionSummary.builder("persons.write.buffer.batch.size")
+                .description("Persons inserted per group commit")
+                .register(meterRegistry);
+        Gauge.builder("persons.write.buffer.queued", queue, BlockingQueue::size)
+                .description("Person creations waiting for the next group commit")
+                .register(meterRegistry);
+
+        this.writer = enabled ? Thread.ofPlatform().name("person-write-buffer").daemon().start(this::writeBatches) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the request and waits until the batch containing it committed.
+     *
+     * @throws PersonCreationException if the person was rejected, e.g. because the email address is in use
+     * @throws IllegalStateException if the buffer is closed or the batch did not commit in time; the message tells
+     *                               whether the person may still be created
+     */
+    public void createPerson(PersonCreationRequest request) {
+        if (!running) {
+            throw closedException();
+        }
+
+        var pendingCreation = new PendingCreation(request, new CompletableFuture<>());
+        try {
+            queue.put(pendingCreation);
+            // the writer may have drained the queue for the last time while this request was being queued
+            if (!running && queue.remove(pendingCreation)) {
+                throw closedException();
+            }
+            pendingCreation.created().get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PersonCreationException("The person creation was interrupted.");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(exception.getCause());
+        } catch (TimeoutException exception) {
+            if (queue.remove(pendingCreation)) {
+                throw new IllegalStateException("The person creation did not start within " + maxWait + ", the person was not created.");
+            }
+            throw new IllegalStateException("The person creation did not commit within " + maxWait + ", the person may still be created.");
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join();
+        }
+    }
+
+    private void writeBatches() {
+        List<PendingCreation> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException exception) {
+                running = false;
+                failAll(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        List<PendingCreation> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        failAll(remaining);
+    }
+
+    private static void failAll(List<PendingCreation> pendingCreations) {
+        pendingCreations.forEach(pendingCreation -> pendingCreation.created().completeExceptionally(closedException()));
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("The person write buffer is closed.");
+    }
+
+    private void write(List<PendingCreation> batch) {
+        batchSizes.record(batch.size());
+        try {
+            complete(batch, personService.getObject().createPersons(batch.stream().map(PendingCreation::request).toList()));
+        } catch (RuntimeException exception) {
+            if (batch.size() == 1) {
+                batch.getFirst().created().completeExceptionally(translate(exception, batch.getFirst().request()));
+                return;
+            }
+            // e.g. a concurrent bulk creation took an email address, so one failing person does not fail the others
+            batch.forEach(pendingCreation -> write(List.of(pendingCreation)));
+        }
+    }
+
+    // the same error the unbuffered PersonService#createPerson reports for a concurrently taken email address
+    private static RuntimeException translate(RuntimeException exception, PersonCreationRequest request) {
+        if (exception instanceof DataIntegrityViolationException violation && PersonService.isEmailAddressViolation(violation)) {
+            return new PersonCreationException(PersonService.emailInUseMessage(request.email()));
+        }
+        return exception;
+    }
+
+    private static void complete(List<PendingCreation> batch, List<PersonCreationResult> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            var result = results.get(i);
+            if (result.created()) {
+                batch.get(i).created().complete(null);
+            } else {
+                batch.get(i).created().completeExceptionally(new PersonCreationException(result.reason()));
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+
+import java.util.List;
+
+/**
+ * Published by {@link PersonService} once persons have been saved. Listeners that keep derived read state
+ * should use {@code @TransactionalEventListener} so they only react after the transaction committed.
+ */
+public record PersonsCreatedEvent(List<Person> persons) {
+}
@@ -0,0 +1,8 @@
+package com.demo.softwaretests.person.service;
+
+/**
+ * Published once SQL scripts wrote persons past {@link PersonService}, e.g. the deferred {@code data.sql} seeding.
+ * Nothing tells which persons were written, so listeners that keep derived read state reload or drop it.
+ */
+public record PersonsSeededEvent() {
+}
@@ -0,0 +1,231 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.repository.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Sends queries that tolerate slightly stale data to a read replica when the data source is a
+ * {@link ReplicaRoutingDataSource}, and runs them right away otherwise.
+ * Replica lag is measured with a heartbeat: every {@code persons.replicas.heartbeat-interval} the current time is
+ * written to the primary and read back from every replica. Replicas whose heartbeat is older than
+ * {@code persons.replicas.max-lag} get no reads. For {@code persons.replicas.read-your-writes} after a creation
+ * only replicas that already replicated it are used, so a client that just created a person finds it on its next read.
+ * Without a fitting replica the query goes to the primary.
+ * <p>
+ * The window holds for every client, not only the one that created, and also opens when another instance's creation
+ * shows up in the data version: ETags carry the version read from the primary, so a body read from a replica
+ * without the creation would be stale under a tag that claims it. For the same reason the window never closes
+ * before {@code persons.replicas.max-lag} passed, when every replica still getting reads has the creation.
+ * The price is that every read goes to the primary while creations keep coming at least once a window;
+ * {@code persons.replica.read-your-writes} counts the reads that went there only because of it.
+ */
+@Component
+public class ReplicaReads implements SmartInitializingSingleton {
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+    private final Duration heartbeatInterval;
+    private final List<String> replicaNames = new ArrayList<>();
+    private final List<JdbcTemplate> replicaJdbc = new ArrayList<>();
+    private final List<Counter> replicaQueries = new ArrayList<>();
+    private final AtomicLongArray heartbeats;
+    private final AtomicLong lastCreationMillis = new AtomicLong(UNKNOWN);
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryQueries;
+    private final Counter readYourWritesQueries;
+
+    private JdbcTemplate primaryJdbc;
+    private ScheduledExecutorService heartbeat;
+
+    public ReplicaReads(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${persons.replicas.max-lag:5s}") Duration maxLag,
+            @Value("${persons.replicas.read-your-writes:5s}") Duration readYourWrites,
+            @Value("${persons.replicas.heartbeat-interval:1s}") Duration heartbeatInterval
+    ) {
+        this.routingDataSource = dataSource instanceof ReplicaRoutingDataSource routing ? routing : null;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxLagMillis = maxLag.toMillis();
+        this.readYourWritesMillis = Math.max(readYourWrites.toMillis(), maxLag.toMillis());
+        this.heartbeatInterval = heartbeatInterval;
+
+        if (routingDataSource != null) {
+            primaryJdbc = new JdbcTemplate(routingDataSource.getPrimary());
+            routingDataSource.getReplicas().forEach((name, replica) -> {
+                replicaNames.add(name);
+                replicaJdbc.add(new JdbcTemplate(replica));
+            });
+        }
+        this.heartbeats = new AtomicLongArray(replicaNames.size());
+
+        this.primaryQueries = Counter.builder("persons.replica.queries")
+                .description("Read-only queries by the database that answered them")
+                .tag("database", "primary")
+                .register(meterRegistry);
+        this.readYourWritesQueries = Counter.builder("persons.replica.read-your-writes")
+                .description("Read-only queries sent to the primary because no recent enough replica had the last creation yet")
+                .register(meterRegistry);
+        for (int i = 0; i < replicaNames.size(); i++) {
+            int replica = i;
+            heartbeats.set(replica, UNKNOWN);
+            replicaQueries.add(Counter.builder("persons.replica.queries")
+                    .description("Read-only queries by the database that answered them")
+                    .tag("database", replicaNames.get(replica))
+                    .register(meterRegistry));
+            Gauge.builder("persons.replica.lag", heartbeats, beats -> lagSeconds(beats.get(replica)))
+                    .description("Age of the last heartbeat that reached the replica")
+                    .tag("database", replicaNames.get(replica))
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        primaryJdbc.execute("create table if not exists replication_heartbeat (id int primary key, beat_at bigint not null)");
+        refresh();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-heartbeat").daemon().factory());
+        heartbeat.scheduleWithFixedDelay(
+                this::refresh, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return routingDataSource != null && !replicaNames.isEmpty();
+    }
+
+    /**
+     * Runs the query in a read-only transaction on a replica that is recent enough, or on the primary.
+     * Inside a running transaction the query keeps using that transaction's connection.
+     */
+    public <T> T onReplica(Supplier<T> query) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+
+        int replica = chooseReplica(System.currentTimeMillis());
+        if (replica < 0) {
+            primaryQueries.increment();
+            return query.get();
+        }
+
+        replicaQueries.get(replica).increment();
+        return ReplicaRoutingDataSource.onReplica(replicaNames.get(replica), () -> readOnlyTransaction.execute(status -> query.get()));
+    }
+
+    /**
+     * Writes a heartbeat to the primary and reads the latest one back from every replica.
+     * A replica that cannot be read counts as lagging until it answers again.
+     */
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            if (primaryJdbc.update("update replication_heartbeat set beat_at = ? where id = 1", now) == 0) {
+                primaryJdbc.update("insert into replication_heartbeat (id, beat_at) values (1, ?)", now);
+            }
+        } catch (DataAccessException exception) {
+            // the replicas are still worth checking, their last heartbeat simply ages
+        }
+
+        for (int replica = 0; replica < replicaJdbc.size(); replica++) {
+            heartbeats.set(replica, readHeartbeat(replicaJdbc.get(replica)));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonsCreated(PersonsCreatedEvent event) {
+        lastCreationMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Opens the read-your-writes window for persons another instance created; they committed before the caller saw
+     * them, so a heartbeat written from now on follows them.
+     */
+    public void onPersonsCreatedElsewhere() {
+        lastCreationMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    // round robin over the replicas that are recent enough, starting one further on every call
+    private int chooseReplica(long now) {
+        long lastCreation = lastCreationMillis.get();
+        boolean readingOwnWrites = lastCreation != UNKNOWN && now - lastCreation < readYourWritesMillis;
+        int replicas = replicaNames.size();
+        int first = Math.floorMod(nextReplica.getAndIncrement(), replicas);
+        boolean waitingForOwnWrites = false;
+        for (int i = 0; i < replicas; i++) {
+            int replica = (first + i) % replicas;
+            long beatAt = heartbeats.get(replica);
+            if (beatAt == UNKNOWN || now - beatAt > maxLagMillis) {
+                continue;
+            }
+            // a heartbeat written after the creation committed only arrives after the creation itself
+            if (readingOwnWrites && beatAt <= lastCreation) {
+                waitingForOwnWrites = true;
+                continue;
+            }
+            return replica;
+        }
+        if (waitingForOwnWrites) {
+            readYourWritesQueries.increment();
+        }
+        return -1;
+    }
+
+    private static long readHeartbeat(JdbcTemplate replica) {
+        try {
+            Long beatAt = replica.query("select beat_at from replication_heartbeat where id = 1",
+                    resultSet -> resultSet.next() ? resultSet.getLong(1) : null);
+            return beatAt == null ? UNKNOWN : beatAt;
+        } catch (DataAccessException exception) {
+            return UNKNOWN;
+        }
+    }
+
+    private static double lagSeconds(long beatAt) {
+        return beatAt == UNKNOWN ? Double.NaN : (System.currentTimeMillis() - beatAt) / 1000.0;
+    }
+}
@@ -1,5 +1,5 @@
-INSERT INTO person (full_name, email_address, age) VALUES
-    ('Richard Rüdiger', 'richard.ruediger@gmail.com', 41),
-    ('Günther Grandiger', 'guenther.grandiger@gmail.com', 55),
-    ('Lilliane Langdorf', 'lilliane.langdorf@icloud.com', 29),
-    ('Bianca Bambus', 'bianca.bambus@yahoo.com', 22);
\ No newline at end of file
+INSERT INTO person (id, full_name, email_address, email_domain, date_of_birth) VALUES
+    (NEXT VALUE FOR person_seq, 'Richard Rüdiger', 'richard.ruediger@gmail.com', 'gmail.com', DATEADD('YEAR', -41, CURRENT_DATE)),
+    (NEXT VALUE FOR person_seq, 'Günther Grandiger', 'guenther.grandiger@gmail.com', 'gmail.com', DATEADD('YEAR', -55, CURRENT_DATE)),
+    (NEXT VALUE FOR person_seq, 'Lilliane Langdorf', 'lilliane.langdorf@icloud.com', 'icloud.com', DATEADD('YEAR', -29, CURRENT_DATE)),
+    (NEXT VALUE FOR person_seq, 'Bianca Bambus', 'bianca.bambus@yahoo.com', 'yahoo.com', DATEADD('YEAR', -22, CURRENT_DATE));
@@ -0,0 +1,14 @@
+-- Replaces the stored age column with a date_of_birth column for person tables created before it existed.
+-- The exact birthday of existing rows is unknown, so it is approximated as the day the stored age was reached.
+ALTER TABLE person ADD COLUMN IF NOT EXISTS date_of_birth DATE;
+
+UPDATE person
+SET date_of_birth = DATEADD('YEAR', -age, CURRENT_DATE)
+WHERE date_of_birth IS NULL;
+
+ALTER TABLE person ALTER COLUMN date_of_birth SET NOT NULL;
+-- the keyset index of the age-range pages references the age column, which cannot be dropped while it exists
+DROP INDEX IF EXISTS idx_person_age_id;
+ALTER TABLE person DROP COLUMN IF EXISTS age;
+
+CREATE INDEX IF NOT EXISTS idx_person_date_of_birth_id ON person (date_of_birth, id);
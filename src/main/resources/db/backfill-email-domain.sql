@@ -0,0 +1,10 @@
+-- Backfills the email_domain column for person tables created before it existed.
+ALTER TABLE person ADD COLUMN IF NOT EXISTS email_domain VARCHAR(255);
+
+UPDATE person
+SET email_domain = LOWER(SUBSTRING(email_address, LOCATE('@', email_address, -1) + 1))
+WHERE email_domain IS NULL;
+
+ALTER TABLE person ALTER COLUMN email_domain SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_person_email_domain_id ON person (email_domain, id);
@@ -0,0 +1,89 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.util.Persons;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactivePersonControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personRepository.save(Persons.richard());
+        personRepository.save(Persons.bianca());
+        personRepository.save(Persons.guenther());
+    }
+
+    @Test
+    void givenMorePersonsThanTheLimit_whenGetAllPersonsByEmailDomain_thenReturnFirstPageAndNextCursor() {
+        // Act & Assert
+        webTestClient.get().uri("/persons/email-domain/{domain}?limit=1", "gmail.com")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Next-Cursor")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].fullName").isEqualTo("Richard Rüdiger");
+    }
+
+    @Test
+    void givenNdjsonAccepted_whenGetAllPersonsByAgeRange_thenStreamPersonsYoungestFirst() {
+        // Act
+        List<String> fullNames = webTestClient.get().uri("/persons/age-range?fromAge=0&toAge=120")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PersonView.class)
+                .getResponseBody()
+                .map(PersonView::fullName)
+                .collectList()
+                .block();
+
+        // Assert
+        assertThat(fullNames).containsExactly("Bianca Bambus", "Richard Rüdiger", "Günther Grandiger");
+    }
+
+    @Test
+    void givenInvalidCursor_whenGetAllPersonsByAgeRange_thenReturnBadRequest() {
+        // Act & Assert
+        webTestClient.get().uri("/persons/age-range?fromAge=18&toAge=60&after=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.exceptionReason").isEqualTo("The cursor: not-a-cursor is invalid.");
+    }
+
+    @Test
+    void givenPersonDetails_whenCreatePerson_thenPersonIsSavedThroughJpa() {
+        // Act
+        webTestClient.post().uri("/persons/create?firstName=Emma&lastName=Eidhoven&email=emma.eidhoven@hotmail.com&dateOfBirth={dateOfBirth}",
+                        LocalDate.of(1990, 1, 1))
+                .exchange()
+                .expectStatus().isCreated();
+
+        // Assert
+        assertThat(personRepository.existsByEmailAddress("emma.eidhoven@hotmail.com")).isTrue();
+    }
+}
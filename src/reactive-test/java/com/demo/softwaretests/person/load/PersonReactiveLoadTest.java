@@ -0,0 +1,43 @@
+package com.demo.softwaretests.person.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same mix of paged, streamed and creating requests against the servlet/JPA stack and the
+ * WebFlux/R2DBC stack of the {@code reactive} profile, and prints throughput, latency and failures of both.
+ * Run with {@code mvn test -P load-tests,reactive -Dtest=PersonReactiveLoadTest}, sized with {@code -Dload.concurrency},
+ * {@code -Dload.requests} and {@code -Dload.mix}.
+ */
+@Tag("load")
+class PersonReactiveLoadTest {
+
+    private static final int PERSONS = 20_000;
+
+    @Test
+    void givenSameLoad_whenQueryingPersons_thenAnswerEveryRequestOnServletAndReactiveStack() throws Exception {
+        // Arrange
+        var profile = LoadProfile.fromSystemProperties(
+                64, 10_000, "AGE_RANGE=35,AGE_RANGE_STREAM=10,EMAIL_DOMAIN=35,EMAIL_DOMAIN_STREAM=10,CREATE=10");
+
+        // Act
+        LoadReport servlet = run(profile, "servlet");
+        LoadReport reactive = run(profile, "reactive", "reactive");
+
+        // Assert
+        servlet.print(System.out);
+        reactive.print(System.out);
+        assertThat(servlet.requests()).isEqualTo(profile.requests());
+        assertThat(reactive.requests()).isEqualTo(profile.requests());
+    }
+
+    private LoadReport run(LoadProfile profile, String name, String... profiles) throws InterruptedException {
+        try (var harness = LoadTestHarness.start(name, PERSONS, profiles)) {
+            // warm up the JIT and connection pools before measuring
+            harness.run(new LoadProfile(profile.concurrency(), profile.requests() / 10, profile.mix()));
+            return harness.run(profile);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.softwaretests.person.controller;
+
+import com.demo.softwaretests.person.exception.PersonCreationErrorResponse;
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.exception.PersonQueryErrorResponse;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonCreationResult;
+import com.demo.softwaretests.person.service.PersonPage;
+import com.demo.softwaretests.person.service.ReactivePersonService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * WebFlux counterpart of {@link PersonController}, active in the {@code reactive} profile.
+ * The NDJSON variants stream with backpressure: rows are only read from the database as fast as the client consumes them.
+ */
+@RestController
+@RequestMapping("/persons")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonController {
+
+    private static final String DEFAULT_PAGE_SIZE = "100";
+
+    private final ReactivePersonService reactivePersonService;
+
+    public ReactivePersonController(ReactivePersonService reactivePersonService) {
+        this.reactivePersonService = reactivePersonService;
+    }
+
+    @GetMapping("/email-domain/{domain}")
+    public Mono<ResponseEntity<List<PersonView>>> getAllPersonsByEmailDomain(
+            @PathVariable String domain,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "after", required = false) String after
+    ) {
+        return reactivePersonService.getAllPersonsByEmailDomain(domain, limit, after).map(this::toResponse);
+    }
+
+    @GetMapping("/age-range")
+    public Mono<ResponseEntity<List<PersonView>>> getAllPersonsByAgeRange(
+            @RequestParam("fromAge") int fromAge,
+            @RequestParam("toAge") int toAge,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "after", required = false) String after
+    ) {
+        return reactivePersonService.getAllPersonsByAgeRange(fromAge, toAge, limit, after).map(this::toResponse);
+    }
+
+    @GetMapping(value = "/email-domain/{domain}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PersonView> streamAllPersonsByEmailDomain(@PathVariable String domain) {
+
+        return reactivePersonService.streamAllPersonsByEmailDomain(domain);
+    }
+
+    @GetMapping(value = "/age-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PersonView> streamAllPersonsByAgeRange(
+            @RequestParam("fromAge") int fromAge,
+            @RequestParam("toAge") int toAge
+    ) {
+        return reactivePersonService.streamAllPersonsByAgeRange(fromAge, toAge);
+    }
+
+    @PostMapping("/create")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Void> createPerson(
+            @RequestParam("firstName") String firstName,
+            @RequestParam("lastName") String lastName,
+            @RequestParam("email") String email,
+            @RequestParam("dateOfBirth") LocalDate dateOfBirth
+    ) {
+        return reactivePersonService.createPerson(firstName, lastName, email, dateOfBirth);
+    }
+
+    @PostMapping("/create-bulk")
+    public Mono<List<PersonCreationResult>> createPersons(@RequestBody List<PersonCreationRequest> requests) {
+
+        return reactivePersonService.createPersons(requests);
+    }
+
+    @ExceptionHandler(PersonCreationException.class)
+    public ResponseEntity<PersonCreationErrorResponse> handleUserCreationException(
+            PersonCreationException personCreationException
+    ) {
+        return new ResponseEntity<>(
+                new PersonCreationErrorResponse("Person could not be created!", personCreationException.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(PersonQueryException.class)
+    public ResponseEntity<PersonQueryErrorResponse> handlePersonQueryException(
+            PersonQueryException personQueryException
+    ) {
+        return new ResponseEntity<>(
+                new PersonQueryErrorResponse("Persons could not be queried!", personQueryException.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    private ResponseEntity<List<PersonView>> toResponse(PersonPage page) {
+        var response = ResponseEntity.status(HttpStatus.OK);
+        if (page.nextCursor() != null) {
+            response.header(PersonController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.persons());
+    }
+}
@@ -0,0 +1,94 @@
+package com.demo.softwaretests.person.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking counterpart of the {@link PersonRepository} read queries, used by the {@code reactive} profile.
+ * Rows are emitted as subscribers request them, so slow consumers hold back the query instead of buffering its result.
+ * A plain class rather than a Spring Data interface, since JPA claims every repository of its {@code @Entity} types.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonRepository {
+
+    private static final String SELECT_PERSON_VIEW = "select id, full_name, email_address, email_domain, date_of_birth from person ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactivePersonRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<PersonView> findPageByDateOfBirthRange(
+            LocalDate bornAfter,
+            LocalDate bornOnOrBefore,
+            LocalDate afterDateOfBirth,
+            long afterId,
+            int limit
+    ) {
+        return databaseClient.sql(SELECT_PERSON_VIEW + """
+                        where date_of_birth > :bornAfter and date_of_birth <= :bornOnOrBefore
+                          and date_of_birth <= :afterDateOfBirth
+                          and (date_of_birth < :afterDateOfBirth or (date_of_birth = :afterDateOfBirth and id < :afterId))
+                        order by date_of_birth desc, id desc
+                        limit :limit
+                        """)
+                .bind("bornAfter", bornAfter)
+                .bind("bornOnOrBefore", bornOnOrBefore)
+                .bind("afterDateOfBirth", afterDateOfBirth)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePersonRepository::toPersonView)
+                .all();
+    }
+
+    public Flux<PersonView> findPageByEmailDomain(String emailDomain, long afterId, int limit) {
+        return databaseClient.sql(SELECT_PERSON_VIEW + """
+                        where email_domain = :emailDomain and id > :afterId
+                        order by id
+                        limit :limit
+                        """)
+                .bind("emailDomain", emailDomain)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePersonRepository::toPersonView)
+                .all();
+    }
+
+    public Flux<PersonView> streamAllByDateOfBirthRange(LocalDate bornAfter, LocalDate bornOnOrBefore) {
+        return databaseClient.sql(SELECT_PERSON_VIEW + """
+                        where date_of_birth > :bornAfter and date_of_birth <= :bornOnOrBefore
+                        order by date_of_birth desc, id desc
+                        """)
+                .bind("bornAfter", bornAfter)
+                .bind("bornOnOrBefore", bornOnOrBefore)
+                .map(ReactivePersonRepository::toPersonView)
+                .all();
+    }
+
+    public Flux<PersonView> streamAllByEmailDomain(String emailDomain) {
+        return databaseClient.sql(SELECT_PERSON_VIEW + """
+                        where email_domain = :emailDomain
+                        order by id
+                        """)
+                .bind("emailDomain", emailDomain)
+                .map(ReactivePersonRepository::toPersonView)
+                .all();
+    }
+
+    private static PersonView toPersonView(Readable row) {
+        return new PersonView(
+                row.get("id", Long.class),
+                row.get("full_name", String.class),
+                row.get("email_address", String.class),
+                row.get("email_domain", String.class),
+                row.get("date_of_birth", LocalDate.class)
+        );
+    }
+}
@@ -0,0 +1,86 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.repository.ReactivePersonRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Person queries of the {@code reactive} profile, answered from R2DBC without blocking the event loop.
+ * Creation keeps the JPA validation and bulk insert of {@link PersonService} and runs it on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonService {
+
+    private final ReactivePersonRepository reactivePersonRepository;
+    private final PersonService personService;
+
+    public ReactivePersonService(ReactivePersonRepository reactivePersonRepository, PersonService personService) {
+        this.reactivePersonRepository = reactivePersonRepository;
+        this.personService = personService;
+    }
+
+    public Mono<PersonPage> getAllPersonsByEmailDomain(String domain, int limit, String after) {
+        return Mono.defer(() -> {
+            PersonService.validatePageSize(limit);
+            var emailDomain = Person.toEmailDomain(domain);
+            long afterId = PersonService.emailDomainAfterId(emailDomain, after);
+
+            return reactivePersonRepository.findPageByEmailDomain(emailDomain, afterId, limit + 1)
+                    .collectList()
+                    .map(persons -> PersonService.toPage(persons, limit, person -> new PersonCursor(person.emailDomain(), person.id())));
+        });
+    }
+
+    public Mono<PersonPage> getAllPersonsByAgeRange(int fromAge, int toAge, int limit, String after) {
+        return Mono.defer(() -> {
+            PersonService.validatePageSize(limit);
+            var dateOfBirthRange = DateOfBirthRange.forAgeRange(fromAge, toAge, LocalDate.now());
+            var afterDateOfBirth = dateOfBirthRange.bornOnOrBefore().plusDays(1);
+            long afterId = 0;
+            if (after != null) {
+                var cursor = PersonCursor.decode(after);
+                afterDateOfBirth = PersonService.parseDateOfBirth(cursor, after);
+                afterId = cursor.id();
+            }
+
+            return reactivePersonRepository.findPageByDateOfBirthRange(
+                            dateOfBirthRange.bornAfter(),
+                            dateOfBirthRange.bornOnOrBefore(),
+                            afterDateOfBirth,
+                            afterId,
+                            limit + 1)
+                    .collectList()
+                    .map(persons -> PersonService.toPage(persons, limit, person -> new PersonCursor(person.dateOfBirth().toString(), person.id())));
+        });
+    }
+
+    public Flux<PersonView> streamAllPersonsByEmailDomain(String domain) {
+        return Flux.defer(() -> reactivePersonRepository.streamAllByEmailDomain(Person.toEmailDomain(domain)));
+    }
+
+    public Flux<PersonView> streamAllPersonsByAgeRange(int fromAge, int toAge) {
+        return Flux.defer(() -> {
+            var dateOfBirthRange = DateOfBirthRange.forAgeRange(fromAge, toAge, LocalDate.now());
+            return reactivePersonRepository.streamAllByDateOfBirthRange(dateOfBirthRange.bornAfter(), dateOfBirthRange.bornOnOrBefore());
+        });
+    }
+
+    public Mono<Void> createPerson(String firstName, String lastName, String email, LocalDate dateOfBirth) {
+        return Mono.<Void>fromRunnable(() -> personService.createPerson(firstName, lastName, email, dateOfBirth))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<List<PersonCreationResult>> createPersons(List<PersonCreationRequest> requests) {
+        return Mono.fromCallable(() -> personService.createPersons(requests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.DateOfBirthRange;
+import com.demo.softwaretests.person.service.PersonAgeIndex;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonPage;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import com.demo.softwaretests.person.service.PersonService;
+import com.demo.softwaretests.person.util.Persons;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "persons.age-index.enabled=true")
+class PersonAgeIndexIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @Autowired
+    private PersonAgeIndex personAgeIndex;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personQueryCache.invalidateAll();
+        personAgeIndex.rebuild();
+    }
+
+    @Test
+    void givenCreatedPersons_whenGetAllPersonsByAgeRangePageByPage_thenReturnSamePersonsAsTheDatabase() {
+        // Arrange
+        personService.createPersons(Persons.generate(500).stream()
+                .map(person -> new PersonCreationRequest(
+                        "First", "Last", person.getEmailAddress(), person.getDateOfBirth()))
+                .toList());
+
+        // Act
+        List<PersonView> persons = new ArrayList<>();
+        String after = null;
+        do {
+            PersonPage page = personService.getAllPersonsByAgeRange(30, 50, 20, after);
+            persons.addAll(page.persons());
+            after = page.nextCursor();
+        } while (after != null);
+
+        // Assert
+        var range = DateOfBirthRange.forAgeRange(30, 50, LocalDate.now());
+        List<PersonView> expected = personRepository.findAll().stream()
+                .filter(person -> range.contains(person.getDateOfBirth()))
+                .map(Persons::view)
+                .sorted(Comparator.comparing(PersonView::dateOfBirth).thenComparing(PersonView::id).reversed())
+                .toList();
+        assertThat(expected).isNotEmpty();
+        assertThat(persons).isEqualTo(expected);
+    }
+
+    @Test
+    void givenPersonDeletedBehindTheIndex_whenGetAllPersonsByAgeRange_thenSkipItAndStillFillThePage() {
+        // Arrange
+        personService.createPerson("Richard", "Rüdiger", "richard.ruediger@gmail.com", Persons.richard().getDateOfBirth());
+        personService.createPerson("Günther", "Grandiger", "guenther.grandiger@gmail.com", Persons.guenther().getDateOfBirth());
+        personService.createPerson("Lilliane", "Langdorf", "lilliane.langdorf@icloud.com", Persons.lilliane().getDateOfBirth());
+        personRepository.delete(personRepository.findAll().stream()
+                .filter(person -> person.getEmailAddress().startsWith("richard"))
+                .findFirst()
+                .orElseThrow());
+
+        // Act
+        PersonPage page = personService.getAllPersonsByAgeRange(18, 60, 1, null);
+
+        // Assert
+        assertThat(page.persons()).extracting(PersonView::emailAddress).containsExactly("lilliane.langdorf@icloud.com");
+        assertThat(page.nextCursor()).isNotNull();
+        assertThat(personService.getAllPersonsByAgeRange(18, 60, 1, page.nextCursor()).persons())
+                .extracting(PersonView::emailAddress)
+                .containsExactly("guenther.grandiger@gmail.com");
+    }
+}
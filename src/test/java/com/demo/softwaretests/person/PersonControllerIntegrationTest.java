@@ -2,6 +2,8 @@ package com.demo.softwaretests.person;
 
 import com.demo.softwaretests.person.controller.PersonController;
 import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.service.PersonAggregates;
+import com.demo.softwaretests.person.service.PersonQueryCache;
 import com.demo.softwaretests.person.service.PersonService;
 import com.demo.softwaretests.person.util.Persons;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,12 +11,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,11 +50,22 @@ class PersonControllerIntegrationTest {
     @Autowired
     private PersonRepository personRepository;
 
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @Autowired
+    private PersonAggregates personAggregates;
+
+    @Autowired
+    private DataSource dataSource;
+
     @BeforeEach
     void setUp() {
         personRepository.deleteAll();
+        personQueryCache.invalidateAll();
         personRepository.save(Persons.richard());
         personRepository.save(Persons.bianca());
+        personAggregates.rebuild();
     }
 
     @Test
@@ -68,6 +95,235 @@ class PersonControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].emailAddress").value("bianca.bambus@yahoo.com"));
     }
 
+    @Test
+    void givenLimit_whenGetAllPersonsByAgeRange_thenReturnFirstPageWithNextCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/persons/age-range")
+                        .param("fromAge", "0")
+                        .param("toAge", "120")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].fullName").value("Bianca Bambus"))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    void givenInvalidCursor_whenGetAllPersonsByAgeRange_thenReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/persons/age-range")
+                        .param("fromAge", "0")
+                        .param("toAge", "120")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage").value("Persons could not be queried!"))
+                .andExpect(jsonPath("$.exceptionReason").value("The cursor: not-a-cursor is invalid."));
+    }
+
+    @Test
+    void givenNdjsonAccepted_whenGetAllPersonsByAgeRange_thenStreamOnePersonPerLine() throws Exception {
+        // Arrange
+        MvcResult mvcResult = mockMvc.perform(get("/persons/age-range")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("fromAge", "0")
+                        .param("toAge", "120"))
+                .andReturn();
+
+        // Act & Assert
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body.split("\n"))
+                .hasSize(2)
+                .satisfiesExactly(
+                        line -> assertThat(line).contains("\"fullName\":\"Bianca Bambus\""),
+                        line -> assertThat(line).contains("\"fullName\":\"Richard Rüdiger\"")
+                );
+    }
+
+    @Test
+    void givenCsvAccepted_whenExportAllPersons_thenStreamHeaderAndOneLinePerPersonInIdOrder() throws Exception {
+        // Arrange
+        MvcResult mvcResult = mockMvc.perform(get("/persons/export").accept("text/csv")).andReturn();
+
+        // Act & Assert
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body.split("\n"))
+                .hasSize(3)
+                .satisfiesExactly(
+                        line -> assertThat(line).isEqualTo("id,fullName,emailAddress,emailDomain,dateOfBirth,age"),
+                        line -> assertThat(line).contains(",Richard Rüdiger,richard.ruediger@gmail.com,gmail.com,"),
+                        line -> assertThat(line).contains(",Bianca Bambus,bianca.bambus@yahoo.com,yahoo.com,")
+                );
+    }
+
+    @Test
+    void givenGzipAccepted_whenExportAllPersons_thenStreamCompressedNdjson() throws Exception {
+        // Arrange
+        MvcResult mvcResult = mockMvc.perform(get("/persons/export")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"))
+                .andReturn();
+
+        // Act & Assert
+        byte[] body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        try (var ndjson = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(ndjson.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                    .hasSize(2)
+                    .satisfiesExactly(
+                            line -> assertThat(line).contains("\"fullName\":\"Richard Rüdiger\""),
+                            line -> assertThat(line).contains("\"fullName\":\"Bianca Bambus\"")
+                    );
+        }
+    }
+
+    @Test
+    void givenETagOfLastResponse_whenGetAllPersonsByAgeRange_thenReturnNotModifiedUntilAPersonIsCreated() throws Exception {
+        // Arrange
+        String eTag = mockMvc.perform(get("/persons/age-range").param("fromAge", "20").param("toAge", "30"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/persons/age-range").param("fromAge", "20").param("toAge", "30")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        personService.createPerson("Emma", "Eidhoven", "emma.eidhoven@hotmail.com", LocalDate.now().minusYears(25));
+        mockMvc.perform(get("/persons/age-range").param("fromAge", "20").param("toAge", "30")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void givenPersonCreatedByAnotherInstance_whenGetAllPersonsByEmailDomainWithItsETag_thenReturnTheNewPerson() throws Exception {
+        // Arrange
+        String eTag = mockMvc.perform(get("/persons/email-domain/{domain}", "gmail.com"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act
+        personRepository.save(Persons.guenther());
+        new JdbcTemplate(dataSource).update("update person_data_version set version = version + 1 where id = 1");
+
+        // Assert
+        mockMvc.perform(get("/persons/email-domain/{domain}", "gmail.com")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void givenFailingDataVersionBump_whenCreatePerson_thenRollBackThePerson() {
+        // Arrange
+        var jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("alter table person_data_version rename to person_data_version_moved");
+
+        try {
+            // Act
+            assertThatThrownBy(() -> personService.createPerson(
+                    "Emma", "Eidhoven", "emma.eidhoven@hotmail.com", LocalDate.now().minusYears(25)))
+                    .isInstanceOf(DataAccessException.class);
+
+            // Assert
+            assertThat(personRepository.existsByEmailAddress("emma.eidhoven@hotmail.com")).isFalse();
+        } finally {
+            jdbc.execute("alter table person_data_version_moved rename to person_data_version");
+        }
+    }
+
+    @Test
+    void givenInvalidLimitAndMatchingETag_whenGetAllPersonsByEmailDomain_thenReturnBadRequest() throws Exception {
+        // Arrange
+        String eTag = mockMvc.perform(get("/persons/email-domain/{domain}", "gmail.com"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/persons/email-domain/{domain}", "gmail.com")
+                        .param("limit", "0")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.exceptionReason").exists());
+    }
+
+    @Test
+    void givenPersons_whenCountPersonsByAgeBuckets_thenReturnCountPerBucket() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/persons/aggregates/age-buckets")
+                        .param("fromAge", "20")
+                        .param("toAge", "49")
+                        .param("bucketSize", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].fromAge").value(20))
+                .andExpect(jsonPath("$[0].toAge").value(29))
+                .andExpect(jsonPath("$[0].count").value(1))
+                .andExpect(jsonPath("$[1].count").value(0))
+                .andExpect(jsonPath("$[2].count").value(1));
+    }
+
+    @Test
+    void givenLargestAgeAndBucketSize_whenCountPersonsByAgeBuckets_thenReturnTwoBuckets() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/persons/aggregates/age-buckets")
+                        .param("fromAge", "0")
+                        .param("toAge", String.valueOf(Integer.MAX_VALUE))
+                        .param("bucketSize", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[1].fromAge").value(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void givenTooManyBuckets_whenCountPersonsByAgeBuckets_thenReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/persons/aggregates/age-buckets")
+                        .param("fromAge", "0")
+                        .param("toAge", "1000")
+                        .param("bucketSize", "1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.exceptionReason").exists());
+    }
+
+    @Test
+    void givenCreatedPerson_whenCountPersonsByEmailDomain_thenIncludePersonWithoutRebuild() throws Exception {
+        // Arrange
+        personService.createPerson("Emma", "Eidhoven", "emma.eidhoven@gmail.com", LocalDate.of(1990, 1, 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/persons/aggregates/email-domains"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['gmail.com']").value(2))
+                .andExpect(jsonPath("$['yahoo.com']").value(1));
+        mockMvc.perform(get("/persons/aggregates/email-domains/top").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].emailDomain").value("gmail.com"))
+                .andExpect(jsonPath("$[0].count").value(2));
+    }
+
     @Test
     void givenPersonDetails_whenCreatePerson_thenReturnCreated() throws Exception {
         // Arrange
@@ -85,6 +341,27 @@ class PersonControllerIntegrationTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void givenPersonList_whenCreatePersons_thenReturnResultPerPerson() throws Exception {
+        // Arrange
+        var requestBody = """
+                [
+                  {"firstName": "Emma", "lastName": "Eidhoven", "email": "emma.eidhoven@hotmail.com", "dateOfBirth": "1990-01-01"},
+                  {"firstName": "Fred", "lastName": "Faker", "email": "richard.ruediger@gmail.com", "dateOfBirth": "1990-01-01"}
+                ]
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/persons/create-bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("emma.eidhoven@hotmail.com"))
+                .andExpect(jsonPath("$[0].created").value(true))
+                .andExpect(jsonPath("$[1].created").value(false))
+                .andExpect(jsonPath("$[1].reason").value("The email address: richard.ruediger@gmail.com is already in use."));
+    }
+
     @Test
     void givenInvalidAge_whenCreatePerson_thenReturnBadRequest() throws Exception {
         // Arrange
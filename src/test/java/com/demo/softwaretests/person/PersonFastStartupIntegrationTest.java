@@ -0,0 +1,69 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.PersonService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fast-startup",
+        "persons.age-index.enabled=true"
+})
+@ActiveProfiles({"test", "fast-startup"})
+class PersonFastStartupIntegrationTest {
+
+    @Autowired
+    private DeferredSqlInitializer deferredSqlInitializer;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    void givenReadyApplication_whenDeferredSeedingFinished_thenServeTheSeededPersons() throws Exception {
+        // Act
+        boolean seeded = deferredSqlInitializer.initialized().get(30, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(seeded).isTrue();
+        assertThat(personRepository.count()).isEqualTo(4);
+        List<PersonView> persons = personService.getAllPersonsByAgeRange(20, 60, 10, null).persons();
+        assertThat(persons).extracting(PersonView::emailAddress).containsExactly(
+                "bianca.bambus@yahoo.com",
+                "lilliane.langdorf@icloud.com",
+                "richard.ruediger@gmail.com",
+                "guenther.grandiger@gmail.com");
+        assertThatThrownBy(() -> personService.validateParameters(LocalDate.of(1985, 3, 12), "richard.ruediger@gmail.com"))
+                .isInstanceOf(PersonCreationException.class);
+    }
+
+    @Test
+    void givenFastStartupProfile_whenContextStarted_thenOnlyInitializeBeansLoadingDerivedStateEagerly() {
+        // Arrange
+        var beanFactory = context.getBeanFactory();
+
+        // Act & Assert
+        assertThat(beanFactory.getBeanDefinition("personController").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("personService").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("emailAddressBloomFilter").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("personAggregates").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("personAgeIndex").isLazyInit()).isFalse();
+    }
+}
@@ -0,0 +1,142 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.entity.PersonImport;
+import com.demo.softwaretests.person.repository.PersonImportRepository;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.service.PersonCsvImporter;
+import com.demo.softwaretests.person.service.PersonImportReport;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PersonImportIntegrationTest {
+
+    private static final String ADULT = LocalDate.now().minusYears(30).toString();
+    private static final String MINOR = LocalDate.now().minusYears(10).toString();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonCsvImporter personCsvImporter;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonImportRepository personImportRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personImportRepository.deleteAll();
+        personQueryCache.invalidateAll();
+    }
+
+    @Test
+    void givenCsvWithInvalidRows_whenImportPersons_thenImportValidRowsAndReportRejectedOnes() throws Exception {
+        // Arrange
+        var csv = """
+                email,firstName,lastName,dateOfBirth
+                richard@gmail.com,Richard,"Rüdiger, Jr.",%1$s
+                bianca@yahoo.com,Bianca,Bambus,%2$s
+                richard@gmail.com,Richard,Twice,%1$s
+
+                guenther@gmx.de,Günther,Gans,31.12.1990
+                helga@web.de,Helga,Hummel,%1$s
+                """.formatted(ADULT, MINOR);
+
+        // Act & Assert
+        mockMvc.perform(put("/persons/imports/hr-feed-1").param("batchSize", "2").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processedRows").value(5))
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.rejectedRows").value(3))
+                .andExpect(jsonPath("$.rejections[0].line").value(3))
+                .andExpect(jsonPath("$.rejections[0].reason").value("The minimum required age is 18."))
+                .andExpect(jsonPath("$.rejections[1].line").value(4))
+                .andExpect(jsonPath("$.rejections[1].reason").value("The email address: richard@gmail.com is already in use."))
+                .andExpect(jsonPath("$.rejections[2].line").value(6));
+
+        assertThat(personRepository.findAll())
+                .extracting(person -> person.getFullName())
+                .containsExactlyInAnyOrder("Richard Rüdiger, Jr.", "Helga Hummel");
+        mockMvc.perform(get("/persons/imports/hr-feed-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(2));
+    }
+
+    @Test
+    void givenCsvWithoutRequiredColumns_whenImportPersons_thenReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/persons/imports/hr-feed-2").contentType("text/csv").content("email,name\na@b.de,A B\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.exceptionReason").value(
+                        "The CSV header must contain the columns: firstName, lastName, email and dateOfBirth."
+                ));
+    }
+
+    @Test
+    void givenInterruptedImport_whenImportingTheSameFileAgain_thenResumeAfterTheLastCommittedChunk() throws Exception {
+        // Arrange
+        var csv = new StringBuilder("firstName,lastName,email,dateOfBirth\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append("Person,").append(i).append(",person").append(i).append("@gmail.com,").append(ADULT).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        int bytesBeforeSeventhRow = csv.indexOf("Person,6");
+
+        assertThatThrownBy(() -> personCsvImporter.importCsv("hr-feed-3", interruptedAfter(bytes, bytesBeforeSeventhRow), 3))
+                .isInstanceOf(IOException.class);
+        PersonImport interrupted = personImportRepository.findById("hr-feed-3").orElseThrow();
+
+        // Act
+        PersonImportReport report = personCsvImporter.importCsv("hr-feed-3", new ByteArrayInputStream(bytes), 3);
+
+        // Assert
+        assertThat(interrupted.getStatus()).isEqualTo(PersonImport.Status.FAILED);
+        assertThat(interrupted.getProcessedRows()).isEqualTo(6);
+        assertThat(report.status()).isEqualTo(PersonImport.Status.COMPLETED);
+        assertThat(report.skippedRows()).isEqualTo(6);
+        assertThat(report.importedRows()).isEqualTo(10);
+        assertThat(report.rejectedRows()).isZero();
+        assertThat(personRepository.count()).isEqualTo(10);
+    }
+
+    private static InputStream interruptedAfter(byte[] bytes, int length) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes, 0, length)) {
+            @Override
+            public int read(byte[] buffer, int offset, int count) throws IOException {
+                int read = super.read(buffer, offset, count);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import com.demo.softwaretests.person.util.Persons;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PersonMetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personQueryCache.invalidateAll();
+        personRepository.saveAll(Persons.listOfRichardAndGuentherAndLilliane());
+    }
+
+    @Test
+    void givenPersonsWithEmailDomain_whenGetAllPersonsByEmailDomain_thenRecordRowsAndStatements() throws Exception {
+        // Arrange
+        double rowsBefore = totalAmount("persons.repository.rows", "method", "findPageByEmailDomain");
+        double statementsBefore = totalAmount("persons.http.sql.statements", "uri", "/persons/email-domain/{domain}");
+        var invocations = meterRegistry.find("spring.data.repository.invocations").tag("method", "findPageByEmailDomain").timer();
+        long invocationsBefore = invocations != null ? invocations.count() : 0;
+
+        // Act
+        mockMvc.perform(get("/persons/email-domain/{domain}", "gmail.com"))
+                .andExpect(status().isOk());
+
+        // Assert
+        assertThat(totalAmount("persons.repository.rows", "method", "findPageByEmailDomain") - rowsBefore)
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("spring.data.repository.invocations")
+                .tags("repository", "PersonRepository", "method", "findPageByEmailDomain")
+                .timer()
+                .count() - invocationsBefore)
+                .isEqualTo(1);
+        assertThat(totalAmount("persons.http.sql.statements", "uri", "/persons/email-domain/{domain}") - statementsBefore)
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenStreamedRequest_whenStreamAllPersonsByAgeRange_thenRecordRowsAndStatementsOfAsyncWork() throws Exception {
+        // Arrange
+        double rowsBefore = totalAmount("persons.repository.rows", "method", "streamAllByDateOfBirthRange");
+        double statementsBefore = totalAmount("persons.http.sql.statements", "uri", "/persons/age-range");
+        MvcResult pending = mockMvc.perform(get("/persons/age-range")
+                        .param("fromAge", "0")
+                        .param("toAge", "120")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // Act
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk());
+
+        // Assert
+        assertThat(totalAmount("persons.repository.rows", "method", "streamAllByDateOfBirthRange") - rowsBefore)
+                .isEqualTo(3);
+        assertThat(totalAmount("persons.http.sql.statements", "uri", "/persons/age-range") - statementsBefore)
+                .isEqualTo(1);
+    }
+
+    private double totalAmount(String name, String tagKey, String tagValue) {
+        var summary = meterRegistry.find(name).tag(tagKey, tagValue).summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
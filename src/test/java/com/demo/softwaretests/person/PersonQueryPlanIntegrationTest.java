@@ -0,0 +1,117 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asks H2 for the plans of the statements Hibernate generates for the date of birth queries, so a query or index change
+ * that falls back to scanning and sorting the whole range fails here instead of only getting slower.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-plan")
+class PersonQueryPlanIntegrationTest {
+
+    private static final int PERSONS = 50_000;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class RecordStatements {
+
+        // runs after the customizer of the SQL statement counter and keeps it inspecting too
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        HibernatePropertiesCustomizer recordStatements() {
+            return properties -> {
+                var inspector = (StatementInspector) properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                    STATEMENTS.add(sql);
+                    return inspector == null ? sql : inspector.inspect(sql);
+                });
+            };
+        }
+    }
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("delete from person");
+        jdbc.update("""
+                insert into person (id, full_name, email_address, email_domain, date_of_birth)
+                select x, 'Plan Person', 'plan' || x || '@plan.test', 'plan.test', dateadd('DAY', -mod(x * 7919, 30000), date '2020-01-01')
+                from system_range(1, ?)
+                """, PERSONS);
+        jdbc.execute("analyze");
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void givenCursorDeepInTheRange_whenFindPageByDateOfBirthRange_thenScanAboutOnePage() {
+        // Arrange
+        var bornAfter = LocalDate.of(1950, 1, 1);
+        var bornOnOrBefore = LocalDate.of(2000, 1, 1);
+        var afterDateOfBirth = LocalDate.of(1960, 1, 1);
+        long afterId = PERSONS;
+
+        // Act
+        personRepository.findPageByDateOfBirthRange(bornAfter, bornOnOrBefore, afterDateOfBirth, afterId, Limit.of(11));
+        String plan = jdbc.queryForObject("explain analyze " + STATEMENTS.getLast(), String.class,
+                bornAfter, bornOnOrBefore, afterDateOfBirth, afterDateOfBirth, afterDateOfBirth, afterId, 11);
+
+        // Assert
+        assertThat(plan).contains("IDX_PERSON_DATE_OF_BIRTH_ID").doesNotContain("1 of 2 columns");
+        assertThat(scanCount(plan)).isLessThan(100);
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void givenDateOfBirthRange_whenStreamAllByDateOfBirthRange_thenReadTheIndexInOrderWithoutSorting() {
+        // Arrange
+        var bornAfter = LocalDate.of(1950, 1, 1);
+        var bornOnOrBefore = LocalDate.of(2000, 1, 1);
+
+        // Act
+        try (var persons = personRepository.streamAllByDateOfBirthRange(bornAfter, bornOnOrBefore)) {
+            persons.findFirst();
+        }
+        String plan = jdbc.queryForObject("explain " + STATEMENTS.getLast(), String.class, bornAfter, bornOnOrBefore);
+
+        // Assert
+        assertThat(plan).contains("IDX_PERSON_DATE_OF_BIRTH_ID").contains("/* index sorted */");
+    }
+
+    private static long scanCount(String plan) {
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        assertThat(matcher.find()).as("scan count in %s", plan).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,180 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.repository.ReplicaRoutingDataSource;
+import com.demo.softwaretests.person.service.PersonDataVersion;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import com.demo.softwaretests.person.service.PersonService;
+import com.demo.softwaretests.person.service.ReplicaReads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// the heartbeat only runs when the tests call refresh, and the replicas are filled by copying the primary
+@SpringBootTest(properties = "persons.replicas.heartbeat-interval=1h")
+@ActiveProfiles("replicas")
+class PersonReplicaIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private PersonDataVersion personDataVersion;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personQueryCache.invalidateAll();
+        personRepository.save(person("Primary Person", "primary@replicas.test"));
+    }
+
+    @Test
+    void givenReplicatedPersons_whenGetAllPersonsByEmailDomain_thenReadFromEveryReplica() {
+        // Arrange
+        replicate();
+        insertOnReplicas("replica@replicas.test");
+        replicaReads.refresh();
+
+        // Act
+        Set<String> emailAddresses = new HashSet<>();
+        for (int limit = 10; limit < 20; limit++) {
+            personService.getAllPersonsByEmailDomain("replicas.test", limit, null).persons()
+                    .forEach(person -> emailAddresses.add(person.emailAddress()));
+        }
+
+        // Assert
+        assertThat(emailAddresses).containsExactlyInAnyOrder(
+                "primary@replicas.test", "replica-0@replicas.test", "replica-1@replicas.test");
+    }
+
+    @Test
+    void givenLaggingReplicas_whenGetAllPersonsByEmailDomain_thenReadFromPrimary() {
+        // Arrange
+        replicate();
+        insertOnReplicas("replica@replicas.test");
+        long hourAgo = System.currentTimeMillis() - 3_600_000;
+        dataSource.getReplicas().values().forEach(replica ->
+                new JdbcTemplate(replica).update("update replication_heartbeat set beat_at = ?", hourAgo));
+        replicaReads.refresh();
+
+        // Act
+        List<PersonView> persons = personService.getAllPersonsByEmailDomain("replicas.test", 10, null).persons();
+
+        // Assert
+        assertThat(persons).extracting(PersonView::emailAddress).containsExactly("primary@replicas.test");
+    }
+
+    @Test
+    void givenPersonCreatedAfterReplication_whenGetAllPersonsByEmailDomain_thenReadFromPrimary() {
+        // Arrange
+        replicate();
+        personService.createPerson("Created", "Person", "created@replicas.test", LocalDate.of(1990, 5, 17));
+
+        // Act
+        List<PersonView> persons = personService.getAllPersonsByEmailDomain("replicas.test", 10, null).persons();
+
+        // Assert
+        assertThat(persons).extracting(PersonView::emailAddress)
+                .containsExactly("primary@replicas.test", "created@replicas.test");
+    }
+
+    @Test
+    void givenPersonCreatedByAnotherInstance_whenGetAllPersonsByEmailDomainAfterTheTag_thenReadFromPrimary() {
+        // Arrange
+        replicate();
+        personService.getAllPersonsByEmailDomain("replicas.test", 10, null);
+        var primary = new JdbcTemplate(dataSource.getPrimary());
+        primary.update("insert into person (id, full_name, email_address, email_domain, date_of_birth) values (?, ?, ?, ?, ?)",
+                2_000_000, "Remote Person", "remote@replicas.test", "replicas.test", LocalDate.of(1980, 1, 1));
+        primary.update("update person_data_version set version = version + 1 where id = 1");
+        double readYourWritesQueries = meterRegistry.counter("persons.replica.read-your-writes").count();
+
+        // Act
+        personDataVersion.tag();
+        List<PersonView> persons = personService.getAllPersonsByEmailDomain("replicas.test", 10, null).persons();
+
+        // Assert
+        assertThat(persons).extracting(PersonView::emailAddress)
+                .containsExactly("primary@replicas.test", "remote@replicas.test");
+        assertThat(meterRegistry.counter("persons.replica.read-your-writes").count()).isGreaterThan(readYourWritesQueries);
+    }
+
+    @Test
+    void givenPersonCreatedAfterReplication_whenValidateParameters_thenCheckPrimary() {
+        // Arrange
+        replicate();
+        personService.createPerson("Created", "Person", "created@replicas.test", LocalDate.of(1990, 5, 17));
+
+        // Act & Assert
+        assertThatThrownBy(() -> personService.validateParameters(LocalDate.of(1990, 5, 17), "created@replicas.test"))
+                .isInstanceOf(PersonCreationException.class);
+    }
+
+    // a snapshot of the primary, including the heartbeat written right before it
+    private void replicate() {
+        replicaReads.refresh();
+        var primary = new JdbcTemplate(dataSource.getPrimary());
+        List<String> script = primary.queryForList("script nodata", String.class).stream()
+                .filter(statement -> !statement.startsWith("--"))
+                .toList();
+        List<String> rows = primary.queryForList("script simple table person, replication_heartbeat", String.class).stream()
+                .filter(statement -> statement.startsWith("INSERT"))
+                .toList();
+        for (DataSource replica : dataSource.getReplicas().values()) {
+            var jdbc = new JdbcTemplate(replica);
+            jdbc.execute("drop all objects");
+            script.forEach(jdbc::execute);
+            rows.forEach(jdbc::execute);
+        }
+        replicaReads.refresh();
+    }
+
+    private void insertOnReplicas(String emailAddress) {
+        int replica = 0;
+        for (DataSource dataSource : this.dataSource.getReplicas().values()) {
+            var numbered = emailAddress.replace("@", "-" + replica++ + "@");
+            new JdbcTemplate(dataSource).update(
+                    "insert into person (id, full_name, email_address, email_domain, date_of_birth) values (?, ?, ?, ?, ?)",
+                    1_000_000 + replica, "Replica Person", numbered, Person.toEmailDomain(numbered), LocalDate.of(1980, 1, 1));
+        }
+    }
+
+    private static Person person(String fullName, String emailAddress) {
+        var person = new Person();
+        person.setFullName(fullName);
+        person.setEmailAddress(emailAddress);
+        person.setDateOfBirth(LocalDate.of(1985, 3, 12));
+        return person;
+    }
+}
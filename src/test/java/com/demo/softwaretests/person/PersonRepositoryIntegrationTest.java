@@ -2,13 +2,18 @@ package com.demo.softwaretests.person;
 
 import com.demo.softwaretests.person.entity.Person;
 import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.DateOfBirthRange;
 import com.demo.softwaretests.person.util.Persons;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -24,34 +29,51 @@ class PersonRepositoryIntegrationTest {
     }
 
     @Test
-    void givenPersonWithinAgeRange_whenFindAllByAgeBetween_thenReturnCorrectPerson() {
+    void givenPersonWithinDateOfBirthRange_whenFindPageByDateOfBirthRange_thenReturnCorrectPerson() {
         // Arrange
-        int fromAge = 20;
-        int toAge = 30;
+        var range = DateOfBirthRange.forAgeRange(20, 30, LocalDate.now());
 
         // Act
-        List<Person> persons = personRepository.findAllByAgeBetween(fromAge, toAge);
+        List<PersonView> persons = personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(10));
 
         // Assert
         assertThat(persons).hasSize(1);
-        assertThat(persons).extracting(Person::getFullName).containsExactly("Lilliane Langdorf");
+        assertThat(persons).extracting(PersonView::fullName).containsExactly("Lilliane Langdorf");
     }
 
     @Test
-    void givenPersonsWithSpecificEmailDomain_whenFindAllByEmailAddressEndsWith_thenReturnCorrectPersons() {
+    void givenPersonsWithSpecificEmailDomain_whenFindPageByEmailDomain_thenReturnCorrectPersons() {
         // Arrange
         String emailDomain = "gmail.com";
 
         // Act
-        List<Person> persons = personRepository.findAllByEmailAddressEndsWith(emailDomain);
+        List<PersonView> persons = personRepository.findPageByEmailDomain(emailDomain, 0, Limit.of(10));
 
         // Assert
         assertThat(persons).hasSize(2);
         assertThat(persons)
-                .extracting(Person::getEmailAddress)
+                .extracting(PersonView::emailAddress)
                 .containsExactly("richard.ruediger@gmail.com", "guenther.grandiger@gmail.com");
     }
 
+    @Test
+    void givenKeysetOfPreviousPage_whenFindPageByDateOfBirthRange_thenReturnFollowingPersons() {
+        // Arrange
+        var range = DateOfBirthRange.forAgeRange(0, 120, LocalDate.now());
+        List<PersonView> firstPage = personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(2));
+        PersonView lastOfFirstPage = firstPage.getLast();
+
+        // Act
+        List<PersonView> secondPage = personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), lastOfFirstPage.dateOfBirth(), lastOfFirstPage.id(), Limit.of(2));
+
+        // Assert
+        assertThat(firstPage).extracting(PersonView::fullName).containsExactly("Lilliane Langdorf", "Richard Rüdiger");
+        assertThat(secondPage).extracting(PersonView::fullName).containsExactly("Günther Grandiger");
+    }
+
     @Test
     void givenPersonExists_whenExistsByEmailAddress_thenReturnTrue() {
         // Arrange
@@ -64,6 +86,18 @@ class PersonRepositoryIntegrationTest {
         assertThat(exists).isTrue();
     }
 
+    @Test
+    void givenSomeEmailAddressesInUse_whenFindEmailAddressesIn_thenReturnOnlyThose() {
+        // Arrange
+        List<String> emailAddresses = List.of("richard.ruediger@gmail.com", "new.address@gmail.com");
+
+        // Act
+        Set<String> emailAddressesInUse = personRepository.findEmailAddressesIn(emailAddresses);
+
+        // Assert
+        assertThat(emailAddressesInUse).containsExactly("richard.ruediger@gmail.com");
+    }
+
     @Test
     void givenPerson_whenSaveAndFindById_thenReturnCorrectPerson() {
         // Arrange
@@ -76,6 +110,7 @@ class PersonRepositoryIntegrationTest {
         assertThat(foundPerson).isEqualTo(savedPerson);
         assertThat(foundPerson).hasFieldOrPropertyWithValue("fullName", "Bianca Bambus");
         assertThat(foundPerson).hasFieldOrPropertyWithValue("emailAddress", "bianca.bambus@yahoo.com");
+        assertThat(foundPerson).hasFieldOrPropertyWithValue("emailDomain", "yahoo.com");
         assertThat(foundPerson).hasFieldOrPropertyWithValue("age", 22);
     }
 
@@ -0,0 +1,58 @@
+package com.demo.softwaretests.person;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonSchemaMigrationIntegrationTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:schema-migration;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop all objects");
+    }
+
+    @Test
+    void givenPersonTableWithStoredAge_whenBackfillDateOfBirth_thenReplaceAgeByDateOfBirth() {
+        // Arrange
+        jdbc.execute("""
+                create table person (
+                    id bigint primary key,
+                    full_name varchar(255) not null,
+                    email_address varchar(255) not null unique,
+                    email_domain varchar(255) not null,
+                    age integer not null
+                )""");
+        jdbc.execute("create index idx_person_age_id on person (age, id)");
+        jdbc.execute("create index idx_person_email_domain_id on person (email_domain, id)");
+        jdbc.update("insert into person values (1, 'Richard Rüdiger', 'richard.ruediger@gmail.com', 'gmail.com', 41)");
+        jdbc.update("insert into person values (2, 'Bianca Bambus', 'bianca.bambus@yahoo.com', 'yahoo.com', 22)");
+
+        // Act
+        new ResourceDatabasePopulator(new ClassPathResource("db/backfill-date-of-birth.sql")).execute(dataSource);
+
+        // Assert
+        assertThat(jdbc.queryForList("select date_of_birth from person order by id", LocalDate.class))
+                .containsExactly(LocalDate.now().minusYears(41), LocalDate.now().minusYears(22));
+        List<String> columns = jdbc.queryForList(
+                "select column_name from information_schema.columns where table_name = 'PERSON'", String.class);
+        assertThat(columns).contains("DATE_OF_BIRTH").doesNotContain("AGE");
+        List<String> indexes = jdbc.queryForList(
+                "select index_name from information_schema.indexes where table_name = 'PERSON'", String.class);
+        assertThat(indexes).contains("IDX_PERSON_DATE_OF_BIRTH_ID", "IDX_PERSON_EMAIL_DOMAIN_ID")
+                .doesNotContain("IDX_PERSON_AGE_ID");
+    }
+}
@@ -3,6 +3,11 @@ package com.demo.softwaretests.person;
 import com.demo.softwaretests.person.entity.Person;
 import com.demo.softwaretests.person.exception.PersonCreationException;
 import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonCreationResult;
+import com.demo.softwaretests.person.service.PersonPage;
+import com.demo.softwaretests.person.service.PersonQueryCache;
 import com.demo.softwaretests.person.service.PersonService;
 import com.demo.softwaretests.person.util.Persons;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,9 +35,13 @@ class PersonServiceIntegrationTest {
     @Autowired
     private PersonRepository personRepository;
 
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
     @BeforeEach
     void setUp() {
         personRepository.deleteAll();
+        personQueryCache.invalidateAll();
     }
 
     @Test
@@ -83,18 +98,56 @@ class PersonServiceIntegrationTest {
         );
     }
 
+    @Test
+    void givenConcurrentCreationsWithSameEmail_whenCreatePerson_thenExactlyOneSucceeds() throws Exception {
+        // Arrange
+        int concurrentRequests = 8;
+        var email = "emma.eidhoven@hotmail.com";
+        var start = new CountDownLatch(1);
+        Callable<String> createEmma = () -> {
+            start.await();
+            try {
+                personService.createPerson("Emma", "Eidhoven", email, LocalDate.now().minusYears(30));
+                return "created";
+            } catch (PersonCreationException exception) {
+                return exception.getMessage();
+            }
+        };
+
+        // Act
+        List<String> outcomes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrentRequests)) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrentRequests; i++) {
+                futures.add(executor.submit(createEmma));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                outcomes.add(future.get());
+            }
+        }
+
+        // Assert
+        assertEquals(1, outcomes.stream().filter("created"::equals).count());
+        assertEquals(
+                concurrentRequests - 1,
+                outcomes.stream().filter(("The email address: " + email + " is already in use.")::equals).count()
+        );
+        assertEquals(1, personRepository.findAll().size());
+    }
+
     @Test
     void givenPersonsWithDifferentAges_whenGetAllPersonsByAgeRange_thenReturnsMatchingPersons() {
         // Arrange
         personRepository.saveAll(Persons.listOfRichardAndGuentherAndLilliane());
 
         // Act
-        List<Person> persons = personService.getAllPersonsByAgeRange(25, 45);
+        List<PersonView> persons = personService.getAllPersonsByAgeRange(25, 45, 10, null).persons();
 
         // Assert
         assertEquals(2, persons.size());
 
-        List<String> fullNames = persons.stream().map(Person::getFullName).toList();
+        List<String> fullNames = persons.stream().map(PersonView::fullName).toList();
         assertTrue(fullNames.contains("Richard Rüdiger"));
         assertTrue(fullNames.contains("Lilliane Langdorf"));
         assertFalse(fullNames.contains("Günther Grandiger"));
@@ -106,14 +159,86 @@ class PersonServiceIntegrationTest {
         personRepository.saveAll(Persons.listOfRichardAndGuentherAndLilliane());
 
         // Act
-        List<Person> persons = personService.getAllPersonsByEmailDomain("@gmail.com");
+        List<PersonView> persons = personService.getAllPersonsByEmailDomain("@gmail.com", 10, null).persons();
 
         // Assert
         assertEquals(2, persons.size());
 
-        List<String> fullNames = persons.stream().map(Person::getFullName).toList();
+        List<String> fullNames = persons.stream().map(PersonView::fullName).toList();
         assertTrue(fullNames.contains("Richard Rüdiger"));
         assertTrue(fullNames.contains("Günther Grandiger"));
         assertFalse(fullNames.contains("Lilliane Langdorf"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenMorePersonsThanLimit_whenGetAllPersonsByEmailDomain_thenPagesCoverAllPersonsOnce() {
+        // Arrange
+        personRepository.saveAll(Persons.listOfRichardAndGuentherAndLilliane());
+
+        // Act
+        PersonPage firstPage = personService.getAllPersonsByEmailDomain("gmail.com", 1, null);
+        PersonPage secondPage = personService.getAllPersonsByEmailDomain("gmail.com", 1, firstPage.nextCursor());
+
+        // Assert
+        assertNotNull(firstPage.nextCursor());
+        assertNull(secondPage.nextCursor());
+
+        List<String> fullNames = List.of(
+                firstPage.persons().getFirst().fullName(),
+                secondPage.persons().getFirst().fullName()
+        );
+        assertTrue(fullNames.contains("Richard Rüdiger"));
+        assertTrue(fullNames.contains("Günther Grandiger"));
+    }
+
+    @Test
+    void givenPersonsWithDifferentEmails_whenStreamAllPersonsByEmailDomain_thenConsumeMatchingPersonsInIdOrder() {
+        // Arrange
+        personRepository.saveAll(Persons.listOfRichardAndGuentherAndLilliane());
+        List<String> fullNames = new ArrayList<>();
+
+        // Act
+        personService.streamAllPersonsByEmailDomain("gmail.com", person -> fullNames.add(person.fullName()));
+
+        // Assert
+        assertEquals(List.of("Richard Rüdiger", "Günther Grandiger"), fullNames);
+    }
+
+    @Test
+    void givenNewAndExistingEmails_whenCreatePersons_thenOnlyNewPersonsAreSaved() {
+        // Arrange
+        personRepository.save(Persons.richard());
+        var dateOfBirth = LocalDate.now().minusYears(30);
+        List<PersonCreationRequest> requests = List.of(
+                new PersonCreationRequest("Emma", "Eidhoven", "emma.eidhoven@hotmail.com", dateOfBirth),
+                new PersonCreationRequest("Fred", "Faker", "richard.ruediger@gmail.com", dateOfBirth),
+                new PersonCreationRequest("Bianca", "Bambus", "bianca.bambus@yahoo.com", dateOfBirth)
+        );
+
+        // Act
+        List<PersonCreationResult> results = personService.createPersons(requests);
+
+        // Assert
+        assertEquals(List.of(true, false, true), results.stream().map(PersonCreationResult::created).toList());
+
+        List<String> fullNames = personRepository.findAll().stream().map(Person::getFullName).toList();
+        assertEquals(3, fullNames.size());
+        assertTrue(fullNames.contains("Emma Eidhoven"));
+        assertTrue(fullNames.contains("Bianca Bambus"));
+        assertFalse(fullNames.contains("Fred Faker"));
+    }
+
+    @Test
+    void givenCachedEmailDomainQuery_whenCreatePersonWithThatDomain_thenQueryReturnsNewPerson() {
+        // Arrange
+        personRepository.save(Persons.richard());
+        personService.getAllPersonsByEmailDomain("gmail.com", 10, null);
+
+        // Act
+        personService.createPerson("Günther", "Grandiger", "guenther.grandiger@gmail.com", LocalDate.now().minusYears(55));
+
+        // Assert
+        List<PersonView> persons = personService.getAllPersonsByEmailDomain("gmail.com", 10, null).persons();
+        assertEquals(2, persons.size());
+    }
+}
@@ -0,0 +1,259 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.entity.PersonImport;
+import com.demo.softwaretests.person.entity.PersonImportShard;
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonImportRepository;
+import com.demo.softwaretests.person.repository.PersonImportShardRepository;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.repository.ShardRoutingDataSource;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonCreationResult;
+import com.demo.softwaretests.person.service.PersonCsvImporter;
+import com.demo.softwaretests.person.service.PersonImportReport;
+import com.demo.softwaretests.person.service.PersonPage;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import com.demo.softwaretests.person.service.PersonService;
+import com.demo.softwaretests.person.service.PersonShards;
+import com.demo.softwaretests.person.util.Persons;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("shards")
+class PersonShardingIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @Autowired
+    private PersonShards personShards;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private PersonCsvImporter personCsvImporter;
+
+    @Autowired
+    private PersonImportRepository personImportRepository;
+
+    @Autowired
+    private PersonImportShardRepository personImportShardRepository;
+
+    @BeforeEach
+    void setUp() {
+        personShards.forEachShard(personRepository::deleteAllInBatch);
+        personShards.forEachShard(personImportShardRepository::deleteAllInBatch);
+        personImportRepository.deleteAll();
+        personQueryCache.invalidateAll();
+    }
+
+    @Test
+    void givenCreatedPersons_whenCreatePersons_thenSpreadThemOverEveryShardWithUniqueIds() {
+        // Arrange
+        List<PersonCreationRequest> requests = requestsFor(300);
+
+        // Act
+        List<PersonCreationResult> results = personService.createPersons(requests);
+
+        // Assert
+        assertThat(results).allMatch(PersonCreationResult::created);
+        assertThat(results).extracting(PersonCreationResult::email)
+                .containsExactlyElementsOf(requests.stream().map(PersonCreationRequest::email).toList());
+        assertThat(personShards.status()).hasSize(3)
+                .allSatisfy(shard -> assertThat(shard.persons()).isGreaterThan(50));
+        List<PersonView> persons = allPersons();
+        assertThat(persons).hasSize(300);
+        assertThat(persons).extracting(PersonView::id).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void givenShardedPersons_whenGetAllPersonsByAgeRangePageByPage_thenReturnThemInAgeRangeOrder() {
+        // Arrange
+        personService.createPersons(requestsFor(300));
+        var expected = allPersons().stream()
+                .filter(person -> person.dateOfBirth().isAfter(LocalDate.now().minusYears(51))
+                        && !person.dateOfBirth().isAfter(LocalDate.now().minusYears(30)))
+                .sorted(Comparator.comparing(PersonView::dateOfBirth).thenComparing(PersonView::id).reversed())
+                .toList();
+
+        // Act
+        List<PersonView> persons = readAllPages((limit, after) -> personService.getAllPersonsByAgeRange(30, 50, limit, after));
+        List<PersonView> streamed = new ArrayList<>();
+        personService.streamAllPersonsByAgeRange(30, 50, streamed::add);
+
+        // Assert
+        assertThat(expected).isNotEmpty();
+        assertThat(persons).isEqualTo(expected);
+        assertThat(streamed).isEqualTo(expected);
+    }
+
+    @Test
+    void givenShardedPersons_whenGetAllPersonsByEmailDomainPageByPage_thenReturnThemInIdOrder() {
+        // Arrange
+        personService.createPersons(requestsFor(300));
+        var expected = allPersons().stream()
+                .filter(person -> person.emailDomain().equals("gmail.com"))
+                .toList();
+
+        // Act
+        List<PersonView> persons = readAllPages((limit, after) -> personService.getAllPersonsByEmailDomain("gmail.com", limit, after));
+
+        // Assert
+        assertThat(expected).hasSize(60);
+        assertThat(persons).isEqualTo(expected);
+    }
+
+    @Test
+    void givenPersonOnItsShard_whenCreateSamePersonAgain_thenRejectTheEmailAddress() {
+        // Arrange
+        personService.createPerson("Richard", "Rüdiger", "richard.ruediger@gmail.com", Persons.richard().getDateOfBirth());
+
+        // Act
+        List<PersonCreationResult> results = personService.createPersons(List.of(
+                new PersonCreationRequest("Richard", "Rüdiger", "richard.ruediger@gmail.com", Persons.richard().getDateOfBirth()),
+                new PersonCreationRequest("Lilliane", "Langdorf", "lilliane.langdorf@icloud.com", Persons.lilliane().getDateOfBirth())
+        ));
+
+        // Assert
+        assertThat(results).extracting(PersonCreationResult::created).containsExactly(false, true);
+        assertThatThrownBy(() -> personService.validateParameters(Persons.richard().getDateOfBirth(), "richard.ruediger@gmail.com"))
+                .isInstanceOf(PersonCreationException.class);
+        assertThatThrownBy(() -> personService.createPerson(
+                "Richard", "Rüdiger", "richard.ruediger@gmail.com", Persons.richard().getDateOfBirth()))
+                .isInstanceOf(PersonCreationException.class);
+    }
+
+    @Test
+    void givenFailingShard_whenCreatePersons_thenRejectItsPersonsAndKeepTheOtherShards() {
+        // Arrange
+        List<PersonCreationRequest> requests = requestsFor(30);
+        var failingShard = new JdbcTemplate(shardRoutingDataSource.getShards().get(1));
+        failingShard.execute("alter table person rename to person_offline");
+
+        // Act
+        List<PersonCreationResult> results;
+        try {
+            results = personService.createPersons(requests);
+        } finally {
+            failingShard.execute("alter table person_offline rename to person");
+        }
+
+        // Assert
+        assertThat(results).extracting(PersonCreationResult::email)
+                .containsExactlyElementsOf(requests.stream().map(PersonCreationRequest::email).toList());
+        assertThat(results).filteredOn(result -> personShards.shardOf(result.email()) == 1).isNotEmpty()
+                .allSatisfy(result -> {
+                    assertThat(result.created()).isFalse();
+                    assertThat(result.reason()).isEqualTo("The database shard of this person failed, so it was not created.");
+                });
+        assertThat(results).filteredOn(result -> personShards.shardOf(result.email()) != 1).isNotEmpty()
+                .allMatch(PersonCreationResult::created);
+        assertThat(allPersons()).hasSize((int) results.stream().filter(PersonCreationResult::created).count());
+    }
+
+    @Test
+    void givenImportInterruptedAfterOneShardCommittedTheChunk_whenImportingAgain_thenCreateTheOtherShardsPersonsOnly() throws Exception {
+        // Arrange
+        List<PersonCreationRequest> requests = requestsFor(6);
+        var csv = new StringBuilder("firstName,lastName,email,dateOfBirth\n");
+        requests.forEach(request -> csv.append(String.join(",",
+                request.firstName(), request.lastName(), request.email(), request.dateOfBirth().toString())).append('\n'));
+        int committedShard = personShards.shardOf(requests.getFirst().email());
+        personImportRepository.save(new PersonImport("sharded-feed"));
+        personService.createPersons(
+                requests.stream().filter(request -> personShards.shardOf(request.email()) == committedShard).toList(),
+                (shard, results) -> {
+                    var shardCheckpoint = new PersonImportShard("sharded-feed");
+                    shardCheckpoint.recordChunk(6, results.size(), 0);
+                    personImportShardRepository.save(shardCheckpoint);
+                });
+
+        // Act
+        PersonImportReport report = personCsvImporter.importCsv(
+                "sharded-feed", new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), 3);
+
+        // Assert
+        assertThat(report.status()).isEqualTo(PersonImport.Status.COMPLETED);
+        assertThat(report.processedRows()).isEqualTo(6);
+        assertThat(report.importedRows()).isEqualTo(6);
+        assertThat(report.rejectedRows()).isZero();
+        assertThat(report.rejections()).isEmpty();
+        assertThat(allPersons()).extracting(PersonView::emailAddress)
+                .containsExactlyInAnyOrderElementsOf(requests.stream().map(PersonCreationRequest::email).toList());
+    }
+
+    @Test
+    void givenPersonsOnTheWrongShard_whenRebalance_thenMoveThemToTheirShard() {
+        // Arrange
+        personService.createPersons(requestsFor(30));
+        var firstShard = new JdbcTemplate(shardRoutingDataSource.getShards().getFirst());
+        List<PersonView> misplaced = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            var emailAddress = "moved" + i + "@gmx.de";
+            if (personShards.shardOf(emailAddress) != 0) {
+                firstShard.update(
+                        "insert into person (id, full_name, email_address, email_domain, date_of_birth) values (?, ?, ?, ?, ?)",
+                        1_000_000 + i, "Moved Person", emailAddress, "gmx.de", LocalDate.of(1980, 1, 1));
+                misplaced.add(new PersonView(1_000_000L + i, "Moved Person", emailAddress, "gmx.de", LocalDate.of(1980, 1, 1)));
+            }
+        }
+
+        // Act
+        long moved = personShards.rebalance();
+
+        // Assert
+        assertThat(moved).isEqualTo(misplaced.size());
+        assertThat(personShards.rebalance()).isZero();
+        assertThat(allPersons()).hasSize(30 + misplaced.size()).containsAll(misplaced);
+        var emailAddress = misplaced.getFirst().emailAddress();
+        assertThat(personShards.onShard(personShards.shardOf(emailAddress), () -> personRepository.existsByEmailAddress(emailAddress)))
+                .isTrue();
+    }
+
+    private List<PersonView> allPersons() {
+        List<PersonView> persons = new ArrayList<>();
+        personService.streamAllPersons(persons::add);
+        return persons;
+    }
+
+    private static List<PersonCreationRequest> requestsFor(int count) {
+        return Persons.generate(count).stream()
+                .map(person -> new PersonCreationRequest("First", "Last", person.getEmailAddress(), person.getDateOfBirth()))
+                .toList();
+    }
+
+    private static List<PersonView> readAllPages(BiFunction<Integer, String, PersonPage> query) {
+        List<PersonView> persons = new ArrayList<>();
+        String after = null;
+        do {
+            PersonPage page = query.apply(17, after);
+            persons.addAll(page.persons());
+            after = page.nextCursor();
+        } while (after != null);
+        return persons;
+    }
+}
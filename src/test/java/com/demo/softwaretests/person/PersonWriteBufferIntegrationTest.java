@@ -0,0 +1,122 @@
+package com.demo.softwaretests.person;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.service.PersonQueryCache;
+import com.demo.softwaretests.person.service.PersonService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("group-commit")
+class PersonWriteBufferIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonQueryCache personQueryCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personQueryCache.invalidateAll();
+    }
+
+    @Test
+    void givenConcurrentCreations_whenCreatePerson_thenSaveEveryPersonInFewerTransactions() throws Exception {
+        // Arrange
+        int persons = 200;
+        var batchSizes = meterRegistry.get("persons.write.buffer.batch.size").summary();
+        long batchesBefore = batchSizes.count();
+        var start = new CountDownLatch(1);
+        List<Future<?>> creations = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < persons; i++) {
+                var email = "person" + i + "@gmail.com";
+                creations.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    personService.createPerson("First", "Last", email, LocalDate.of(1990, 1, 1));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var creation : creations) {
+                creation.get();
+            }
+        }
+
+        // Assert
+        assertThat(personRepository.count()).isEqualTo(persons);
+        assertThat(batchSizes.count() - batchesBefore).isLessThan(persons);
+    }
+
+    @Test
+    void givenEmailAddressInUse_whenCreatePerson_thenThrowExceptionAfterBatchCommitted() {
+        // Arrange
+        personService.createPerson("Richard", "Rüdiger", "richard.ruediger@gmail.com", LocalDate.of(1984, 1, 1));
+
+        // Act & Assert
+        assertThatThrownBy(() -> personService.createPerson("Fred", "Faker", "richard.ruediger@gmail.com", LocalDate.of(1990, 1, 1)))
+                .isInstanceOf(PersonCreationException.class)
+                .hasMessage("The email address: richard.ruediger@gmail.com is already in use.");
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void givenSameEmailAddressInOneBatch_whenCreatePerson_thenCreateOnlyTheFirstPerson() throws Exception {
+        // Arrange
+        var start = new CountDownLatch(1);
+        List<Future<?>> creations = new ArrayList<>();
+
+        // Act
+        int failures = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                creations.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    personService.createPerson("Fred", "Faker", "fred.faker@gmail.com", LocalDate.of(1990, 1, 1));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var creation : creations) {
+                try {
+                    creation.get();
+                } catch (ExecutionException exception) {
+                    assertThat(exception.getCause()).isInstanceOf(PersonCreationException.class);
+                    failures++;
+                }
+            }
+        }
+
+        // Assert
+        assertThat(failures).isEqualTo(9);
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+}
@@ -3,63 +3,169 @@ package com.demo.softwaretests.person.controller;
 import com.demo.softwaretests.person.entity.Person;
 import com.demo.softwaretests.person.exception.PersonCreationErrorResponse;
 import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.exception.PersonQueryErrorResponse;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonCreationResult;
+import com.demo.softwaretests.person.service.PersonDataVersion;
+import com.demo.softwaretests.person.service.PersonPage;
 import com.demo.softwaretests.person.service.PersonService;
 import com.demo.softwaretests.person.util.Persons;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class PersonControllerTest {
 
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
     @Mock
     private PersonService personService;
 
+    @Mock
+    private PersonDataVersion personDataVersion;
+
+    @Spy
+    private SerializedPageCache serializedPageCache = new SerializedPageCache(OBJECT_MAPPER, new SimpleMeterRegistry(), 1 << 20);
+
     @InjectMocks
     private PersonController personController;
 
     @Test
-    void givenValidEmailDomain_whenGetAllPersonsByEmailDomain_thenReturnPersonsList() {
+    void givenValidEmailDomain_whenGetAllPersonsByEmailDomain_thenReturnPersonsList() throws IOException {
         // Arrange
         var domain = "gmail.com";
-        List<Person> persons = Persons.listOfRichardAndGuenther();
-        when(personService.getAllPersonsByEmailDomain(domain)).thenReturn(persons);
+        List<PersonView> persons = Persons.views(Persons.listOfRichardAndGuenther());
+        when(personService.getAllPersonsByEmailDomain(domain, 100, null)).thenReturn(new PersonPage(persons, null));
+
+        // Act
+        ResponseEntity<byte[]> response = personController.getAllPersonsByEmailDomain(domain, 100, null, null, newRequest());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(persons, readPersons(response.getBody()));
+        assertNull(response.getHeaders().getFirst(PersonController.NEXT_CURSOR_HEADER));
+        verify(personService, times(1)).getAllPersonsByEmailDomain(domain, 100, null);
+    }
+
+    @Test
+    void givenValidAgeRange_whenGetAllPersonsByAgeRange_thenReturnPersonsList() throws IOException {
+        // Arrange
+        int fromAge = 30;
+        int toAge = 45;
+        List<PersonView> persons = Persons.views(Persons.listOfRichardAndLilliane());
+        when(personService.getAllPersonsByAgeRange(fromAge, toAge, 100, null)).thenReturn(new PersonPage(persons, null));
 
         // Act
-        ResponseEntity<List<Person>> response = personController.getAllPersonsByEmailDomain(domain);
+        ResponseEntity<byte[]> response = personController.getAllPersonsByAgeRange(fromAge, toAge, 100, null, null, newRequest());
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(persons, response.getBody());
-        verify(personService, times(1)).getAllPersonsByEmailDomain(domain);
+        assertEquals(persons, readPersons(response.getBody()));
+        verify(personService, times(1)).getAllPersonsByAgeRange(fromAge, toAge, 100, null);
     }
 
     @Test
-    void givenValidAgeRange_whenGetAllPersonsByAgeRange_thenReturnPersonsList() {
+    void givenFurtherPages_whenGetAllPersonsByAgeRange_thenReturnNextCursorHeader() throws IOException {
         // Arrange
         int fromAge = 30;
         int toAge = 45;
-        List<Person> persons = Persons.listOfRichardAndLilliane();
-        when(personService.getAllPersonsByAgeRange(fromAge, toAge)).thenReturn(persons);
+        List<PersonView> persons = Persons.views(Persons.listOfRichard());
+        when(personService.getAllPersonsByAgeRange(fromAge, toAge, 1, null)).thenReturn(new PersonPage(persons, "next"));
 
         // Act
-        ResponseEntity<List<Person>> response = personController.getAllPersonsByAgeRange(fromAge, toAge);
+        ResponseEntity<byte[]> response = personController.getAllPersonsByAgeRange(fromAge, toAge, 1, null, null, newRequest());
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(persons, response.getBody());
-        verify(personService, times(1)).getAllPersonsByAgeRange(fromAge, toAge);
+        assertEquals(persons, readPersons(response.getBody()));
+        assertEquals("next", response.getHeaders().getFirst(PersonController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void givenRepeatedPage_whenGetAllPersonsByEmailDomainWithGzip_thenServeTheSameCompressedBytes() throws IOException {
+        // Arrange
+        var domain = "gmail.com";
+        List<PersonView> persons = Persons.views(Persons.listOfRichardAndGuenther());
+        when(personService.getAllPersonsByEmailDomain(domain, 100, null)).thenReturn(new PersonPage(persons, null));
+
+        // Act
+        ResponseEntity<byte[]> first = personController.getAllPersonsByEmailDomain(domain, 100, null, "gzip", newRequest());
+        ResponseEntity<byte[]> second = personController.getAllPersonsByEmailDomain(domain, 100, null, "gzip, br", newRequest());
+
+        // Assert
+        assertEquals("gzip", first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(first.getBody(), second.getBody());
+        try (var json = new GZIPInputStream(new ByteArrayInputStream(first.getBody()))) {
+            assertEquals(persons, readPersons(json.readAllBytes()));
+        }
+    }
+
+    @Test
+    void givenUnchangedData_whenGetAllPersonsByEmailDomainWithItsETag_thenReturnNotModifiedWithoutQuerying() {
+        // Arrange
+        var domain = "gmail.com";
+        when(personDataVersion.tag()).thenReturn("3f9a12c4-17");
+        when(personService.getAllPersonsByEmailDomain(domain, 100, null))
+                .thenReturn(new PersonPage(Persons.views(Persons.listOfRichard()), null));
+        String eTag = personController.getAllPersonsByEmailDomain(domain, 100, null, null, newRequest()).getHeaders().getETag();
+        var request = new MockHttpServletRequest("GET", "/persons/email-domain/" + domain);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+
+        // Act
+        ResponseEntity<byte[]> response = personController.getAllPersonsByEmailDomain(
+                domain, 100, null, null, new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        // Assert
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(personService, times(1)).getAllPersonsByEmailDomain(domain, 100, null);
+    }
+
+    @Test
+    void givenInvalidLimitAndMatchingETag_whenGetAllPersonsByEmailDomain_thenThrowPersonQueryException() {
+        // Arrange
+        var domain = "gmail.com";
+        doThrow(new PersonQueryException("The limit must be between 1 and 1000."))
+                .when(personService).validateEmailDomainQuery(domain, 0, null);
+        var request = new MockHttpServletRequest("GET", "/persons/email-domain/" + domain);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3f9a12c4-17\"");
+
+        // Act & Assert
+        assertThrows(PersonQueryException.class, () -> personController.getAllPersonsByEmailDomain(
+                domain, 0, null, null, new ServletWebRequest(request, new MockHttpServletResponse())));
+        verify(personDataVersion, never()).tag();
+        verify(personService, never()).getAllPersonsByEmailDomain(domain, 0, null);
     }
 
     @Test
@@ -79,6 +185,23 @@ class PersonControllerTest {
         verify(personService, times(1)).createPerson(firstName, lastName, email, dateOfBirth);
     }
 
+    @Test
+    void givenPersonList_whenCreatePersons_thenReturnResults() {
+        // Arrange
+        List<PersonCreationRequest> requests = List.of(
+                new PersonCreationRequest("Lilliane", "Langdorf", "lilliane.langdorf@icloud.com", LocalDate.of(1995, 3, 20))
+        );
+        List<PersonCreationResult> results = List.of(PersonCreationResult.created("lilliane.langdorf@icloud.com"));
+        when(personService.createPersons(requests)).thenReturn(results);
+
+        // Act
+        ResponseEntity<List<PersonCreationResult>> response = personController.createPersons(requests);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
     @Test
     void givenPersonCreationException_whenHandleUserCreationException_thenReturnErrorResponse() {
         // Arrange
@@ -97,4 +220,27 @@ class PersonControllerTest {
         assertEquals(expectedResponse.getErrorMessage(), response.getBody().getErrorMessage());
         assertEquals(expectedResponse.getExceptionReason(), response.getBody().getExceptionReason());
     }
+
+    @Test
+    void givenPersonQueryException_whenHandlePersonQueryException_thenReturnErrorResponse() {
+        // Arrange
+        var exception = new PersonQueryException("Invalid cursor");
+
+        // Act
+        ResponseEntity<PersonQueryErrorResponse> response = personController.handlePersonQueryException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Persons could not be queried!", response.getBody().getErrorMessage());
+        assertEquals("Invalid cursor", response.getBody().getExceptionReason());
+    }
+
+    private static List<PersonView> readPersons(byte[] json) throws IOException {
+        return OBJECT_MAPPER.readValue(json, new TypeReference<>() {});
+    }
+
+    private static ServletWebRequest newRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/persons"), new MockHttpServletResponse());
+    }
 }
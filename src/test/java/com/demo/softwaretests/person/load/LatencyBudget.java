@@ -0,0 +1,43 @@
+package com.demo.softwaretests.person.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upper bounds for the latency percentiles of a load test run and the share of requests allowed to fail.
+ */
+record LatencyBudget(Duration p50, Duration p95, Duration p99, Duration p999, double maximumFailureRate) {
+
+    static LatencyBudget fromSystemProperties(LatencyBudget defaults) {
+        return new LatencyBudget(
+                duration("load.budget.p50", defaults.p50()),
+                duration("load.budget.p95", defaults.p95()),
+                duration("load.budget.p99", defaults.p99()),
+                duration("load.budget.p999", defaults.p999()),
+                Double.parseDouble(System.getProperty("load.budget.failure-rate", String.valueOf(defaults.maximumFailureRate()))));
+    }
+
+    List<String> violationsOf(LoadReport report) {
+        List<String> violations = new ArrayList<>();
+        check(violations, "p50", report.percentile(50), p50);
+        check(violations, "p95", report.percentile(95), p95);
+        check(violations, "p99", report.percentile(99), p99);
+        check(violations, "p99.9", report.percentile(99.9), p999);
+        if (report.failureRate() > maximumFailureRate) {
+            violations.add("failure rate %.4f exceeds %.4f".formatted(report.failureRate(), maximumFailureRate));
+        }
+        return violations;
+    }
+
+    private static void check(List<String> violations, String percentile, Duration actual, Duration budget) {
+        if (actual.compareTo(budget) > 0) {
+            violations.add("%s of %d ms exceeds the budget of %d ms".formatted(percentile, actual.toMillis(), budget.toMillis()));
+        }
+    }
+
+    private static Duration duration(String property, Duration defaultValue) {
+        String millis = System.getProperty(property);
+        return millis != null ? Duration.ofMillis(Long.parseLong(millis)) : defaultValue;
+    }
+}
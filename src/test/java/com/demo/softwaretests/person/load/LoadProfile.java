@@ -0,0 +1,45 @@
+package com.demo.softwaretests.person.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How hard and with which request mix a load test drives the application.
+ * The mix maps endpoints to relative weights, e.g. {@code AGE_RANGE=45,EMAIL_DOMAIN=45,CREATE=10}.
+ */
+record LoadProfile(int concurrency, int requests, Map<PersonEndpoint, Integer> mix) {
+
+    LoadProfile {
+        if (mix.isEmpty() || mix.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("The request mix needs at least one endpoint and no negative weights: " + mix);
+        }
+    }
+
+    static LoadProfile fromSystemProperties(int concurrency, int requests, String mix) {
+        return new LoadProfile(
+                Integer.getInteger("load.concurrency", concurrency),
+                Integer.getInteger("load.requests", requests),
+                parseMix(System.getProperty("load.mix", mix)));
+    }
+
+    static Map<PersonEndpoint, Integer> parseMix(String mix) {
+        Map<PersonEndpoint, Integer> weights = new EnumMap<>(PersonEndpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] endpointAndWeight = entry.trim().split("=");
+            weights.put(PersonEndpoint.valueOf(endpointAndWeight[0].trim()), Integer.parseInt(endpointAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    PersonEndpoint endpointOf(long requestNumber) {
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long slot = requestNumber % totalWeight;
+        for (var entry : mix.entrySet()) {
+            slot -= entry.getValue();
+            if (slot < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable for a non-empty mix");
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.softwaretests.person.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Throughput and latency of a load test run, overall and per endpoint. Latencies are recorded in microseconds.
+ */
+record LoadReport(String name, Histogram latencies, Map<PersonEndpoint, Histogram> endpointLatencies,
+                  long successes, long failures, Duration elapsed) {
+
+    long requests() {
+        return successes + failures;
+    }
+
+    double requestsPerSecond() {
+        return requests() / (elapsed.toNanos() / 1e9);
+    }
+
+    double failureRate() {
+        return requests() == 0 ? 0 : (double) failures / requests();
+    }
+
+    Duration percentile(double percentile) {
+        return Duration.ofNanos(latencies.getValueAtPercentile(percentile) * 1_000);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%s: %d requests, %d failures, %.0f req/s in %d ms%n",
+                name, requests(), failures, requestsPerSecond(), elapsed.toMillis());
+        out.printf("  %-20s %8s %10s %10s %10s %10s %10s%n", "endpoint", "count", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        endpointLatencies.forEach((endpoint, histogram) -> printRow(out, endpoint.name(), histogram));
+        printRow(out, "all", latencies);
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("  %-20s %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(95) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.demo.softwaretests.person.load;
+
+import com.demo.softwaretests.person.SoftwaretestsApplication;
+import com.demo.softwaretests.person.service.PersonCreationRequest;
+import com.demo.softwaretests.person.service.PersonService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application on a random port against its own in-memory database seeded with generated persons,
+ * and drives it over HTTP with a {@link LoadProfile}, recording latencies in HdrHistograms.
+ */
+class LoadTestHarness implements AutoCloseable {
+
+    private static final int SEED_CHUNK_SIZE = 10_000;
+
+    private final String name;
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    private LoadTestHarness(String name, ConfigurableApplicationContext context) {
+        this.name = name;
+        this.context = context;
+        this.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    static LoadTestHarness start(String name, int persons, String... profiles) {
+        var context = new SpringApplicationBuilder(SoftwaretestsApplication.class)
+                .profiles(profiles)
+                .properties(
+                        "server.port=0",
+                        "management.server.port=0",
+                        // the client reuses pooled connections, the server closing idle ones would race with it
+                        "server.tomcat.max-keep-alive-requests=-1",
+                        "server.tomcat.keep-alive-timeout=10m",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + name,
+                        "spring.r2dbc.url=r2dbc:h2:mem:///load-" + name,
+                        "spring.main.banner-mode=off")
+                .run();
+        seed(context.getBean(PersonService.class), persons);
+        return new LoadTestHarness(name, context);
+    }
+
+    LoadReport run(LoadProfile profile) throws InterruptedException {
+        var latencies = newHistogram();
+        Map<PersonEndpoint, Histogram> endpointLatencies = new EnumMap<>(PersonEndpoint.class);
+        profile.mix().keySet().forEach(endpoint -> endpointLatencies.put(endpoint, newHistogram()));
+        var successes = new AtomicLong();
+        var failures = new AtomicLong();
+        var inFlight = new Semaphore(profile.concurrency());
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build()) {
+            for (long requestNumber = 0; requestNumber < profile.requests(); requestNumber++) {
+                var endpoint = profile.endpointOf(requestNumber);
+                var request = endpoint.request(baseUrl, requestNumber);
+                inFlight.acquire();
+                clients.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 == 2) {
+                            successes.incrementAndGet();
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart);
+                        latencies.recordValue(latencyMicros);
+                        endpointLatencies.get(endpoint).recordValue(latencyMicros);
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        return new LoadReport(name, latencies, endpointLatencies, successes.get(), failures.get(),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(3);
+    }
+
+    private static void seed(PersonService personService, int persons) {
+        var random = new Random(persons);
+        List<PersonCreationRequest> requests = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < persons; i++) {
+            requests.add(new PersonCreationRequest(
+                    "First" + i,
+                    "Last" + i,
+                    "person" + i + "@" + PersonEndpoint.EMAIL_DOMAINS.get(i % PersonEndpoint.EMAIL_DOMAINS.size()),
+                    LocalDate.now().minusYears(18).minusDays(random.nextInt(60 * 365))));
+            if (requests.size() == SEED_CHUNK_SIZE || i == persons - 1) {
+                personService.createPersons(requests);
+                requests.clear();
+            }
+        }
+    }
+}
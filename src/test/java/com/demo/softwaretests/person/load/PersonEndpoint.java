@@ -0,0 +1,68 @@
+package com.demo.softwaretests.person.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@code /persons} endpoints a load test can drive, each building a random but valid request against the seeded dataset.
+ */
+enum PersonEndpoint {
+
+    AGE_RANGE {
+        @Override
+        HttpRequest request(String baseUrl, long requestNumber) {
+            int fromAge = ThreadLocalRandom.current().nextInt(18, 70);
+            return HttpRequest.newBuilder(URI.create(
+                    baseUrl + "/persons/age-range?fromAge=" + fromAge + "&toAge=" + (fromAge + 10))).build();
+        }
+    },
+    AGE_RANGE_STREAM {
+        @Override
+        HttpRequest request(String baseUrl, long requestNumber) {
+            int fromAge = ThreadLocalRandom.current().nextInt(18, 70);
+            return HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/persons/age-range?fromAge=" + fromAge + "&toAge=" + (fromAge + 1)))
+                    .header("Accept", "application/x-ndjson")
+                    .build();
+        }
+    },
+    EMAIL_DOMAIN {
+        @Override
+        HttpRequest request(String baseUrl, long requestNumber) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/persons/email-domain/" + randomEmailDomain())).build();
+        }
+    },
+    EMAIL_DOMAIN_STREAM {
+        @Override
+        HttpRequest request(String baseUrl, long requestNumber) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/persons/email-domain/" + randomEmailDomain()))
+                    .header("Accept", "application/x-ndjson")
+                    .build();
+        }
+    },
+    CREATE {
+        @Override
+        HttpRequest request(String baseUrl, long requestNumber) {
+            LocalDate dateOfBirth = LocalDate.now().minusYears(18).minusDays(ThreadLocalRandom.current().nextInt(60 * 365));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/persons/create"
+                            + "?firstName=Load&lastName=Test" + requestNumber
+                            + "&email=load.test" + requestNumber + "." + System.nanoTime() + "@example.com"
+                            + "&dateOfBirth=" + dateOfBirth))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+    };
+
+    static final List<String> EMAIL_DOMAINS = List.of(
+            "gmail.com", "yahoo.com", "icloud.com", "hotmail.com", "gmx.de",
+            "web.de", "outlook.com", "proton.me", "posteo.de", "mailbox.org");
+
+    abstract HttpRequest request(String baseUrl, long requestNumber);
+
+    private static String randomEmailDomain() {
+        return EMAIL_DOMAINS.get(ThreadLocalRandom.current().nextInt(EMAIL_DOMAINS.size()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.softwaretests.person.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates persons at high concurrency with one transaction per request and in the group-commit profile,
+ * and prints throughput, latency and failures of both.
+ * Failures are reported rather than asserted: the client does not retry a POST on a pooled connection
+ * the server closed meanwhile.
+ * Run with {@code mvn test -P load-tests -Dtest=PersonGroupCommitLoadTest}, sized with {@code -Dload.concurrency}
+ * and {@code -Dload.requests}.
+ */
+@Tag("load")
+class PersonGroupCommitLoadTest {
+
+    private static final int PERSONS = 1_000;
+
+    @Test
+    void givenConcurrentCreations_whenCreatingPersons_thenCreateEveryPersonWithAndWithoutGroupCommit() throws Exception {
+        // Arrange
+        var profile = LoadProfile.fromSystemProperties(64, 10_000, "CREATE=1");
+
+        // Act
+        LoadReport transactionPerRequest = run(profile, "transaction-per-request");
+        LoadReport groupCommit = run(profile, "group-commit", "group-commit");
+
+        // Assert
+        transactionPerRequest.print(System.out);
+        groupCommit.print(System.out);
+        assertThat(transactionPerRequest.requests()).isEqualTo(profile.requests());
+        assertThat(groupCommit.requests()).isEqualTo(profile.requests());
+    }
+
+    private LoadReport run(LoadProfile profile, String name, String... profiles) throws InterruptedException {
+        try (var harness = LoadTestHarness.start(name, PERSONS, profiles)) {
+            harness.run(new LoadProfile(profile.concurrency(), profile.requests() / 10, profile.mix()));
+            return harness.run(profile);
+        }
+    }
+}
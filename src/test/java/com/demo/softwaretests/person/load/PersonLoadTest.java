@@ -0,0 +1,42 @@
+package com.demo.softwaretests.person.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the {@code /persons} endpoints against a seeded dataset and fails when the latency budget is exceeded.
+ * Run with {@code mvn test -P load-tests -Dtest=PersonLoadTest}, tuned with {@code -Dload.persons}, {@code -Dload.concurrency},
+ * {@code -Dload.requests}, {@code -Dload.mix}, {@code -Dload.budget.p50/p95/p99/p999} in milliseconds
+ * and {@code -Dload.budget.failure-rate}.
+ */
+@Tag("load")
+class PersonLoadTest {
+
+    private static final int PERSONS = Integer.getInteger("load.persons", 50_000);
+
+    private static final LatencyBudget DEFAULT_BUDGET = new LatencyBudget(
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofMillis(1000), 0.001);
+
+    @Test
+    void givenSeededDataset_whenDrivingPersonEndpoints_thenStayWithinLatencyBudget() throws Exception {
+        // Arrange
+        var profile = LoadProfile.fromSystemProperties(32, 10_000, "AGE_RANGE=45,EMAIL_DOMAIN=45,CREATE=10");
+        var budget = LatencyBudget.fromSystemProperties(DEFAULT_BUDGET);
+
+        try (var harness = LoadTestHarness.start("persons", PERSONS)) {
+            // warm up the JIT, connection pools and caches before measuring
+            harness.run(new LoadProfile(profile.concurrency(), profile.requests() / 10, profile.mix()));
+
+            // Act
+            LoadReport report = harness.run(profile);
+
+            // Assert
+            report.print(System.out);
+            assertThat(budget.violationsOf(report)).isEmpty();
+        }
+    }
+}
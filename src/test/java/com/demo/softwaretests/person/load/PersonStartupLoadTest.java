@@ -0,0 +1,124 @@
+package com.demo.softwaretests.person.load;
+
+import com.demo.softwaretests.person.SoftwaretestsApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Launches the application in a JVM of its own, as is and in the {@code fast-startup} profile, and measures the time
+ * from launching the process to the first successful {@code /persons} request, which includes the beans created lazily
+ * for it. The JVM runs the test classpath unless {@code -Dstartup.jar} points at the jar extracted by
+ * {@code mvn package -P fast-startup}; the fast-startup runs then also use its AOT processing and CDS archive.
+ * Run with {@code mvn test -P load-tests -Dtest=PersonStartupLoadTest}, sized with {@code -Dstartup.runs} and failing when
+ * the median fast startup exceeds {@code -Dstartup.budget} milliseconds.
+ */
+@Tag("load")
+class PersonStartupLoadTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration BUDGET = Duration.ofMillis(Long.getLong("startup.budget", 30_000));
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final String FIRST_REQUEST = "/persons/email-domain/gmail.com";
+
+    private record StartupTimes(String name, List<Duration> runs) {
+
+        Duration median() {
+            return runs.stream().sorted().toList().get(runs.size() / 2);
+        }
+
+        void print(PrintStream out) {
+            out.printf("%s: time to first successful request over %d runs: min %d ms, median %d ms, max %d ms%n",
+                    name, runs.size(),
+                    runs.stream().min(Duration::compareTo).orElseThrow().toMillis(),
+                    median().toMillis(),
+                    runs.stream().max(Duration::compareTo).orElseThrow().toMillis());
+        }
+    }
+
+    @Test
+    void givenFastStartupProfile_whenLaunchingTheApplication_thenServeTheFirstRequestWithinTheBudget() throws Exception {
+        // Arrange
+        String jar = System.getProperty("startup.jar");
+        List<String> fastStartupJvmArguments = jar == null ? List.of() : List.of(
+                "-XX:SharedArchiveFile=" + Path.of(jar).resolveSibling("application.jsa"),
+                "-Dspring.aot.enabled=true");
+
+        // Act
+        StartupTimes standard = measure("default", jar, List.of(), "test");
+        StartupTimes fastStartup = measure("fast-startup", jar, fastStartupJvmArguments, "test,fast-startup");
+
+        // Assert
+        standard.print(System.out);
+        fastStartup.print(System.out);
+        assertThat(fastStartup.median()).isLessThanOrEqualTo(BUDGET);
+    }
+
+    private static StartupTimes measure(String name, String jar, List<String> jvmArguments, String profiles) throws Exception {
+        List<Duration> runs = new ArrayList<>();
+        for (int run = 0; run < RUNS; run++) {
+            runs.add(timeToFirstRequest(name + "-" + run, jar, jvmArguments, profiles));
+        }
+        return new StartupTimes(name, runs);
+    }
+
+    private static Duration timeToFirstRequest(String name, String jar, List<String> jvmArguments, String profiles) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArguments);
+        // devtools is on the test classpath and would restart the application in a second class loader
+        command.add("-Dspring.devtools.restart.enabled=false");
+        if (jar != null) {
+            command.addAll(List.of("-jar", jar));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), SoftwaretestsApplication.class.getName()));
+        }
+        command.addAll(List.of("--spring.profiles.active=" + profiles, "--server.port=" + port, "--management.server.port=0"));
+
+        Path log = Files.createDirectories(Path.of("target", "startup")).resolve(name + ".log");
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST)).build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2) {
+                        return Duration.ofNanos(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("The application did not serve " + FIRST_REQUEST + " within " + TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
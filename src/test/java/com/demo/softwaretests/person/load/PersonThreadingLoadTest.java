@@ -0,0 +1,41 @@
+package com.demo.softwaretests.person.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same high-concurrency mix of paged and streamed person queries against the application
+ * on platform threads and in the virtual-threads profile, and prints throughput, latency and failures of both.
+ * Failures are reported rather than asserted, since overloading the connection pool is part of the comparison.
+ * Run with {@code mvn test -P load-tests -Dtest=PersonThreadingLoadTest}, sized with {@code -Dload.concurrency}
+ * and {@code -Dload.requests}.
+ */
+@Tag("load")
+class PersonThreadingLoadTest {
+
+    private static final int PERSONS = 2_000;
+
+    @Test
+    void givenHighConcurrency_whenQueryingPersons_thenAnswerEveryRequestOnPlatformAndVirtualThreads() throws Exception {
+        // Arrange
+        var profile = LoadProfile.fromSystemProperties(500, 5_000, "AGE_RANGE=1,EMAIL_DOMAIN_STREAM=1");
+
+        // Act
+        LoadReport platformThreads = run(profile, "platform-threads");
+        LoadReport virtualThreads = run(profile, "virtual-threads", "virtual-threads");
+
+        // Assert
+        platformThreads.print(System.out);
+        virtualThreads.print(System.out);
+        assertThat(platformThreads.requests()).isEqualTo(profile.requests());
+        assertThat(virtualThreads.requests()).isEqualTo(profile.requests());
+    }
+
+    private LoadReport run(LoadProfile profile, String name, String... profiles) throws InterruptedException {
+        try (var harness = LoadTestHarness.start(name, PERSONS, profiles)) {
+            return harness.run(profile);
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.demo.softwaretests.person.repository;
 
-import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.repository.PersonView;
 import com.demo.softwaretests.person.util.Persons;
+import org.springframework.data.domain.Limit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,37 +21,39 @@ class PersonRepositoryTest {
     private PersonRepository personRepository;
 
     @Test
-    void givenAllPersons_whenFindAllByAgeBetween_thenReturnPersonsInAgeRange() {
+    void givenAllPersons_whenFindPageByDateOfBirthRange_thenReturnPersonsInRange() {
         // Arrange
-        int fromAge = 25;
-        int toAge = 45;
+        LocalDate bornAfter = LocalDate.now().minusYears(46);
+        LocalDate bornOnOrBefore = LocalDate.now().minusYears(25);
 
-        when(personRepository.findAllByAgeBetween(fromAge, toAge)).thenReturn(Persons.listOfRichardAndLilliane());
+        when(personRepository.findPageByDateOfBirthRange(bornAfter, bornOnOrBefore, bornOnOrBefore.plusDays(1), 0, Limit.of(10)))
+                .thenReturn(Persons.views(Persons.listOfRichardAndLilliane()));
 
         // Act
-        List<Person> persons = personRepository.findAllByAgeBetween(fromAge, toAge);
+        List<PersonView> persons = personRepository.findPageByDateOfBirthRange(
+                bornAfter, bornOnOrBefore, bornOnOrBefore.plusDays(1), 0, Limit.of(10));
 
         // Assert
         assertThat(persons).hasSize(2);
         assertThat(persons)
-                .extracting(Person::getFullName)
+                .extracting(PersonView::fullName)
                 .containsExactlyInAnyOrder("Richard Rüdiger", "Lilliane Langdorf");
     }
 
     @Test
-    void givenPersonsWithDifferentEmailAddresses_whenFindAllByEmailAddressEndsWith_thenReturnPersonsWithSameDomains() {
+    void givenPersonsWithDifferentEmailAddresses_whenFindPageByEmailDomain_thenReturnPersonsWithSameDomains() {
         // Arrange
-        var emailDomain = "@gmail.com";
+        var emailDomain = "gmail.com";
 
-        when(personRepository.findAllByEmailAddressEndsWith(emailDomain)).thenReturn(Persons.listOfRichardAndGuenther());
+        when(personRepository.findPageByEmailDomain(emailDomain, 0, Limit.of(10))).thenReturn(Persons.views(Persons.listOfRichardAndGuenther()));
 
         // Act
-        List<Person> persons = personRepository.findAllByEmailAddressEndsWith(emailDomain);
+        List<PersonView> persons = personRepository.findPageByEmailDomain(emailDomain, 0, Limit.of(10));
 
         // Assert
         assertThat(persons).hasSize(2);
         assertThat(persons)
-                .extracting(Person::getEmailAddress)
+                .extracting(PersonView::emailAddress)
                 .containsExactlyInAnyOrder("richard.ruediger@gmail.com", "guenther.grandiger@gmail.com");
     }
 
@@ -0,0 +1,53 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void givenPlainRecords_whenNext_thenReturnFieldsOfOneRecordAtATime() throws IOException {
+        // Arrange
+        var reader = new CsvRecordReader(new StringReader("a,b,c\r\n1,,3\n"));
+
+        // Act & Assert
+        assertThat(reader.next()).containsExactly("a", "b", "c");
+        assertThat(reader.next()).containsExactly("1", "", "3");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void givenQuotedFields_whenNext_thenKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        // Arrange
+        var reader = new CsvRecordReader(new StringReader("\"Rüdiger, Richard\",\"say \"\"hi\"\"\",\"two\nlines\"\nlast,row"));
+
+        // Act
+        List<String> first = reader.next();
+        long firstLine = reader.recordLine();
+        List<String> second = reader.next();
+
+        // Assert
+        assertThat(first).containsExactly("Rüdiger, Richard", "say \"hi\"", "two\nlines");
+        assertThat(firstLine).isEqualTo(1);
+        assertThat(second).containsExactly("last", "row");
+        assertThat(reader.recordLine()).isEqualTo(3);
+    }
+
+    @Test
+    void givenUnclosedQuote_whenNext_thenThrowException() {
+        // Arrange
+        var reader = new CsvRecordReader(new StringReader("\"open,field\n"));
+
+        // Act & Assert
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(PersonCreationException.class)
+                .hasMessage("The quoted field starting in line 1 is not closed.");
+    }
+}
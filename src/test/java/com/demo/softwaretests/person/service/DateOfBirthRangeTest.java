@@ -0,0 +1,32 @@
+package com.demo.softwaretests.person.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DateOfBirthRangeTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 15);
+
+    @Test
+    void givenAgeRange_whenForAgeRange_thenContainBirthdaysOfBothBoundaryAges() {
+        // Act
+        var range = DateOfBirthRange.forAgeRange(30, 40, TODAY);
+
+        // Assert
+        assertThat(range.contains(LocalDate.of(1995, 3, 15))).isTrue();
+        assertThat(range.contains(LocalDate.of(1984, 3, 16))).isTrue();
+    }
+
+    @Test
+    void givenAgeRange_whenForAgeRange_thenExcludeDatesOfBirthJustOutsideTheRange() {
+        // Act
+        var range = DateOfBirthRange.forAgeRange(30, 40, TODAY);
+
+        // Assert
+        assertThat(range.contains(LocalDate.of(1995, 3, 16))).isFalse();
+        assertThat(range.contains(LocalDate.of(1984, 3, 15))).isFalse();
+    }
+}
@@ -0,0 +1,133 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.repository.PersonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailAddressBloomFilterTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailAddressBloomFilter emailAddressFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailAddressFilter = new EmailAddressBloomFilter(personRepository, new PersonShards(null, null, null, 1000), transactionManager, meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void givenEmptyFilter_whenMightContain_thenReturnFalse() {
+        // Act
+        boolean mightContain = emailAddressFilter.mightContain("richard.ruediger@gmail.com");
+
+        // Assert
+        assertThat(mightContain).isFalse();
+        assertThat(meterRegistry.get("persons.email.filter.lookups").tag("result", "definitely_absent").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenNoEmailAddress_whenMightContain_thenReturnFalse() {
+        // Act
+        boolean mightContain = emailAddressFilter.mightContain(null);
+
+        // Assert
+        assertThat(mightContain).isFalse();
+    }
+
+    @Test
+    void givenPutEmailAddress_whenMightContain_thenReturnTrue() {
+        // Arrange
+        emailAddressFilter.put("richard.ruediger@gmail.com");
+
+        // Act
+        boolean mightContain = emailAddressFilter.mightContain("richard.ruediger@gmail.com");
+
+        // Assert
+        assertThat(mightContain).isTrue();
+    }
+
+    @Test
+    void givenFilledToCapacity_whenMightContainUnknownAddresses_thenFalsePositiveRateStaysNearConfiguredProbability() {
+        // Arrange
+        IntStream.range(0, 1000).forEach(i -> emailAddressFilter.put("known" + i + "@gmail.com"));
+
+        // Act
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> emailAddressFilter.mightContain("unknown" + i + "@gmail.com"))
+                .count();
+
+        // Assert
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(emailAddressFilter.expectedFalsePositiveProbability()).isBetween(0.001, 0.03);
+    }
+
+    @Test
+    void givenConfirmations_whenFalsePositiveRate_thenReturnShareOfAbsentLookups() {
+        // Arrange
+        emailAddressFilter.mightContain("absent@gmail.com");
+        emailAddressFilter.recordConfirmations(4, 1);
+
+        // Act
+        double falsePositiveRate = emailAddressFilter.falsePositiveRate();
+
+        // Assert
+        assertThat(falsePositiveRate).isEqualTo(0.75);
+        assertThat(meterRegistry.get("persons.email.filter.false.positive.rate").gauge().value()).isEqualTo(0.75);
+    }
+
+    @Test
+    void givenPersonsInDatabase_whenRebuild_thenFilterContainsTheirEmailAddresses() {
+        // Arrange
+        emailAddressFilter.put("deleted.person@gmail.com");
+        when(personRepository.streamAllEmailAddresses()).thenReturn(Stream.of("richard.ruediger@gmail.com"));
+
+        // Act
+        emailAddressFilter.rebuild();
+
+        // Assert
+        assertThat(emailAddressFilter.mightContain("richard.ruediger@gmail.com")).isTrue();
+        assertThat(emailAddressFilter.mightContain("deleted.person@gmail.com")).isFalse();
+    }
+
+    @Test
+    void givenEmailAddressOfUncommittedTransaction_whenRebuild_thenKeepItUntilTheTransactionCompleted() {
+        // Arrange
+        when(personRepository.streamAllEmailAddresses()).thenAnswer(invocation -> Stream.of("richard.ruediger@gmail.com"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            emailAddressFilter.put("uncommitted.person@gmail.com");
+
+            // Act
+            emailAddressFilter.rebuild();
+
+            // Assert
+            assertThat(emailAddressFilter.mightContain("uncommitted.person@gmail.com")).isTrue();
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(0));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        emailAddressFilter.rebuild();
+        assertThat(emailAddressFilter.mightContain("uncommitted.person@gmail.com")).isFalse();
+    }
+}
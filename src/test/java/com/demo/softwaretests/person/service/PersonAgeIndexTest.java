@@ -0,0 +1,146 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
+import com.demo.softwaretests.person.util.Persons;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonAgeIndexTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PersonAgeIndex personAgeIndex;
+
+    @BeforeEach
+    void setUp() {
+        personAgeIndex = new PersonAgeIndex(personRepository, new PersonShards(null, null, null, 1000), transactionManager, true);
+    }
+
+    @Test
+    void givenRebuiltIndex_whenFindIdsPageByPage_thenReturnIdsInAgeRangePageOrder() {
+        // Arrange
+        List<PersonView> persons = generate(2_000, 30);
+        when(personRepository.streamAllOrderedById()).thenReturn(persons.stream());
+        personAgeIndex.rebuild();
+        var range = DateOfBirthRange.forAgeRange(25, 40, LocalDate.now());
+
+        // Act
+        List<Long> ids = new ArrayList<>();
+        var afterDateOfBirth = range.bornOnOrBefore().plusDays(1);
+        long afterId = 0;
+        PersonAgeIndex.IndexedIds page;
+        while (!(page = personAgeIndex.findIds(range, afterDateOfBirth, afterId, 7)).isEmpty()) {
+            LongStream.of(page.ids()).forEach(ids::add);
+            afterDateOfBirth = page.lastDateOfBirth();
+            afterId = page.ids()[page.ids().length - 1];
+        }
+
+        // Assert
+        List<Long> expected = persons.stream()
+                .filter(person -> range.contains(person.dateOfBirth()))
+                .sorted(Comparator.comparing(PersonView::dateOfBirth).thenComparing(PersonView::id).reversed())
+                .map(PersonView::id)
+                .toList();
+        assertThat(expected).isNotEmpty();
+        assertThat(ids).isEqualTo(expected);
+    }
+
+    @Test
+    void givenPersonCreatedTwice_whenFindIds_thenReturnItOnce() {
+        // Arrange
+        when(personRepository.streamAllOrderedById()).thenReturn(List.<PersonView>of().stream());
+        personAgeIndex.rebuild();
+        var richard = Persons.richard();
+        ReflectionTestUtils.setField(richard, "id", 7L);
+        var range = DateOfBirthRange.forAgeRange(40, 42, LocalDate.now());
+
+        // Act
+        personAgeIndex.onPersonsCreated(new PersonsCreatedEvent(List.of(richard)));
+        personAgeIndex.onPersonsCreated(new PersonsCreatedEvent(List.of(richard)));
+        var indexedIds = personAgeIndex.findIds(range, range.bornOnOrBefore().plusDays(1), 0, 10);
+
+        // Assert
+        assertThat(indexedIds.ids()).containsExactly(7L);
+        assertThat(indexedIds.lastDateOfBirth()).isEqualTo(richard.getDateOfBirth());
+        assertThat(personAgeIndex.footprint().persons()).isEqualTo(1);
+    }
+
+    @Test
+    void givenBulkCreationOnIndexedDays_whenFindIds_thenMergeItsIdsIntoEveryDay() {
+        // Arrange
+        var dateOfBirth = LocalDate.now().minusYears(41);
+        when(personRepository.streamAllOrderedById()).thenReturn(List.of(
+                new PersonView(4L, "Indexed Person", "indexed4@gmail.com", "gmail.com", dateOfBirth),
+                new PersonView(9L, "Indexed Person", "indexed9@gmail.com", "gmail.com", dateOfBirth)).stream());
+        personAgeIndex.rebuild();
+        List<Person> created = new ArrayList<>();
+        for (long id : new long[]{12, 4, 6, 2, 11}) {
+            var person = Persons.richard();
+            ReflectionTestUtils.setField(person, "id", id);
+            person.setDateOfBirth(id == 11 ? dateOfBirth.minusDays(1) : dateOfBirth);
+            created.add(person);
+        }
+        var range = DateOfBirthRange.forAgeRange(40, 42, LocalDate.now());
+
+        // Act
+        personAgeIndex.onPersonsCreated(new PersonsCreatedEvent(created));
+        var indexedIds = personAgeIndex.findIds(range, range.bornOnOrBefore().plusDays(1), 0, 10);
+
+        // Assert
+        assertThat(indexedIds.ids()).containsExactly(12L, 9L, 6L, 4L, 2L, 11L);
+        assertThat(indexedIds.lastDateOfBirth()).isEqualTo(dateOfBirth.minusDays(1));
+        assertThat(personAgeIndex.footprint().persons()).isEqualTo(6);
+    }
+
+    @Test
+    void givenMillionPersonsBornWithinSixtyYears_whenFootprint_thenNeedLessThanTenBytesPerPerson() {
+        // Arrange
+        var random = new Random(60);
+        var today = LocalDate.now();
+        when(personRepository.streamAllOrderedById()).thenReturn(LongStream.rangeClosed(1, 1_000_000).mapToObj(id ->
+                new PersonView(id, "Richard Rüdiger", "richard.ruediger@gmail.com", "gmail.com",
+                        today.minusYears(18).minusDays(random.nextInt(60 * 365)))
+        ));
+
+        // Act
+        personAgeIndex.rebuild();
+        var footprint = personAgeIndex.footprint();
+
+        // Assert
+        assertThat(footprint.persons()).isEqualTo(1_000_000);
+        assertThat(footprint.bytesPerMillionPersons()).isBetween(8_000_000L, 10_000_000L);
+    }
+
+    private static List<PersonView> generate(int count, int years) {
+        var random = new Random(count);
+        var today = LocalDate.now();
+        List<PersonView> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var dateOfBirth = today.minusYears(18).minusDays(random.nextInt(years * 365));
+            persons.add(new PersonView(i + 1L, "First" + i + " Last" + i, "person" + i + "@gmail.com", "gmail.com", dateOfBirth));
+        }
+        return persons;
+    }
+}
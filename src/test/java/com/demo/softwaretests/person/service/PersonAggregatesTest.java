@@ -0,0 +1,151 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.exception.PersonQueryException;
+import com.demo.softwaretests.person.repository.DateOfBirthCount;
+import com.demo.softwaretests.person.repository.EmailDomainCount;
+import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.util.Persons;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonAggregatesTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PersonAggregates personAggregates;
+
+    @BeforeEach
+    void setUp() {
+        personAggregates = new PersonAggregates(personRepository, new PersonShards(null, null, null, 1000), transactionManager);
+    }
+
+    @Test
+    void givenRebuiltFromTable_whenCountByAgeBuckets_thenMatchAgesOfAllPersons() {
+        // Arrange
+        List<Person> persons = Persons.generate(5_000);
+        rebuildFrom(persons);
+        var today = LocalDate.now();
+
+        // Act
+        List<AgeBucketCount> buckets = personAggregates.countByAgeBuckets(18, 80, 5);
+
+        // Assert
+        assertThat(buckets).hasSize(13);
+        for (var bucket : buckets) {
+            var range = DateOfBirthRange.forAgeRange(bucket.fromAge(), bucket.toAge(), today);
+            long expected = persons.stream().filter(person -> range.contains(person.getDateOfBirth())).count();
+            assertThat(bucket.count()).as("persons aged %d to %d", bucket.fromAge(), bucket.toAge()).isEqualTo(expected);
+        }
+        assertThat(buckets.stream().mapToLong(AgeBucketCount::count).sum()).isEqualTo(persons.size());
+    }
+
+    @Test
+    void givenPersonsCreatedEvent_whenCountByEmailDomain_thenIncludeCreatedPersons() {
+        // Arrange
+        rebuildFrom(Persons.listOfRichardAndLilliane());
+
+        // Act
+        personAggregates.onPersonsCreated(new PersonsCreatedEvent(List.of(Persons.guenther(), Persons.bianca())));
+
+        // Assert
+        assertThat(personAggregates.countByEmailDomain())
+                .isEqualTo(Map.of("gmail.com", 2L, "icloud.com", 1L, "yahoo.com", 1L));
+        assertThat(personAggregates.countByAgeBuckets(50, 59, 10))
+                .containsExactly(new AgeBucketCount(50, 59, 1));
+    }
+
+    @Test
+    void givenPersonsCreatedDuringRebuild_whenCountByEmailDomain_thenIncludeThemInTheRecount() {
+        // Arrange
+        rebuildFrom(Persons.listOfRichardAndLilliane());
+        when(personRepository.countPersonsPerDateOfBirth()).thenAnswer(invocation -> {
+            personAggregates.onPersonsCreated(new PersonsCreatedEvent(List.of(Persons.bianca())));
+            return List.of(
+                    new DateOfBirthCount(Persons.richard().getDateOfBirth(), 1),
+                    new DateOfBirthCount(Persons.lilliane().getDateOfBirth(), 1));
+        });
+
+        // Act
+        personAggregates.rebuild();
+
+        // Assert
+        assertThat(personAggregates.countByEmailDomain())
+                .isEqualTo(Map.of("gmail.com", 1L, "icloud.com", 1L, "yahoo.com", 1L));
+        assertThat(personAggregates.countByAgeBuckets(0, 199, 200))
+                .containsExactly(new AgeBucketCount(0, 199, 3));
+    }
+
+    @Test
+    void givenBucketsUpToTheLargestAge_whenCountByAgeBuckets_thenStopAfterTheLastBucket() {
+        // Arrange
+        rebuildFrom(Persons.generate(100));
+
+        // Act
+        List<AgeBucketCount> widest = personAggregates.countByAgeBuckets(0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        List<AgeBucketCount> halves = personAggregates.countByAgeBuckets(1, Integer.MAX_VALUE, Integer.MAX_VALUE / 2 + 1);
+
+        // Assert
+        assertThat(widest).containsExactly(
+                new AgeBucketCount(0, Integer.MAX_VALUE - 1, 100),
+                new AgeBucketCount(Integer.MAX_VALUE, Integer.MAX_VALUE, 0));
+        assertThat(halves).extracting(AgeBucketCount::fromAge).containsExactly(1, Integer.MAX_VALUE / 2 + 2);
+        assertThat(halves.getLast().toAge()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void givenDomainCounts_whenTopEmailDomains_thenReturnLargestDomainsFirst() {
+        // Arrange
+        rebuildFrom(Persons.generate(11));
+
+        // Act
+        List<EmailDomainCount> top = personAggregates.topEmailDomains(2);
+
+        // Assert
+        assertThat(top).containsExactly(new EmailDomainCount("gmail.com", 3), new EmailDomainCount("gmx.de", 2));
+    }
+
+    @Test
+    void givenInvalidLimit_whenTopEmailDomains_thenThrowPersonQueryException() {
+        // Act & Assert
+        assertThatThrownBy(() -> personAggregates.topEmailDomains(0))
+                .isInstanceOf(PersonQueryException.class)
+                .hasMessage("The limit must be between 1 and 1000.");
+    }
+
+    private void rebuildFrom(List<Person> persons) {
+        when(personRepository.countPersonsPerDateOfBirth()).thenReturn(
+                persons.stream()
+                        .collect(Collectors.groupingBy(Person::getDateOfBirth, Collectors.counting()))
+                        .entrySet().stream()
+                        .map(entry -> new DateOfBirthCount(entry.getKey(), entry.getValue()))
+                        .toList()
+        );
+        when(personRepository.countPersonsPerEmailDomain()).thenReturn(
+                persons.stream()
+                        .collect(Collectors.groupingBy(Person::getEmailDomain, Collectors.counting()))
+                        .entrySet().stream()
+                        .map(entry -> new EmailDomainCount(entry.getKey(), entry.getValue()))
+                        .toList()
+        );
+        personAggregates.rebuild();
+    }
+}
@@ -0,0 +1,128 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.util.Persons;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonQueryCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PersonQueryCache personQueryCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        personQueryCache = new PersonQueryCache(meterRegistry, 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void givenCachedQuery_whenGet_thenDoNotLoadAgainAndRecordHit() {
+        // Arrange
+        var loads = new AtomicInteger();
+        var key = new PersonQueryCache.EmailDomainKey("gmail.com", 10, null);
+        personQueryCache.get(key, () -> loadPage(loads));
+
+        // Act
+        personQueryCache.get(key, () -> loadPage(loads));
+
+        // Assert
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "persons.queries").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenIdenticalQueryInFlight_whenGet_thenShareItsResultAndCountCoalescedQuery() throws Exception {
+        // Arrange
+        var loads = new AtomicInteger();
+        var loadStarted = new CountDownLatch(1);
+        var releaseLoad = new CountDownLatch(1);
+        var key = new PersonQueryCache.EmailDomainKey("gmail.com", 10, null);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<PersonPage> first = executor.submit(() -> personQueryCache.get(key, () -> {
+                loadStarted.countDown();
+                await(releaseLoad);
+                return loadPage(loads);
+            }));
+            loadStarted.await();
+
+            // Act
+            Future<PersonPage> second = executor.submit(() -> personQueryCache.get(key, () -> loadPage(loads)));
+            while (meterRegistry.get("persons.query.coalesced").counter().count() == 0 && !second.isDone()) {
+                Thread.onSpinWait();
+            }
+            releaseLoad.countDown();
+
+            // Assert
+            assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(first.get(10, TimeUnit.SECONDS));
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("persons.query.coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void givenCreatedPersonInAgeRange_whenOnPersonsCreated_thenOnlyMatchingQueriesAreEvicted() {
+        // Arrange
+        var loads = new AtomicInteger();
+        var matchingAgeRange = new PersonQueryCache.DateOfBirthRangeKey(DateOfBirthRange.forAgeRange(40, 45, LocalDate.now()), 10, null);
+        var otherAgeRange = new PersonQueryCache.DateOfBirthRangeKey(DateOfBirthRange.forAgeRange(18, 30, LocalDate.now()), 10, null);
+        var otherDomain = new PersonQueryCache.EmailDomainKey("yahoo.com", 10, null);
+        personQueryCache.get(matchingAgeRange, () -> loadPage(loads));
+        personQueryCache.get(otherAgeRange, () -> loadPage(loads));
+        personQueryCache.get(otherDomain, () -> loadPage(loads));
+
+        // Act
+        personQueryCache.onPersonsCreated(new PersonsCreatedEvent(List.of(Persons.richard())));
+
+        // Assert
+        personQueryCache.get(matchingAgeRange, () -> loadPage(loads));
+        personQueryCache.get(otherAgeRange, () -> loadPage(loads));
+        personQueryCache.get(otherDomain, () -> loadPage(loads));
+        assertThat(loads).hasValue(4);
+        assertThat(meterRegistry.get("persons.query.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void givenCreatedPersonWithDomain_whenOnPersonsCreated_thenQueriesForThatDomainAreEvicted() {
+        // Arrange
+        var loads = new AtomicInteger();
+        var key = new PersonQueryCache.EmailDomainKey("gmail.com", 10, null);
+        personQueryCache.get(key, () -> loadPage(loads));
+
+        // Act
+        personQueryCache.onPersonsCreated(new PersonsCreatedEvent(List.of(Persons.guenther())));
+
+        // Assert
+        personQueryCache.get(key, () -> loadPage(loads));
+        assertThat(loads).hasValue(2);
+    }
+
+    private PersonPage loadPage(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new PersonPage(Persons.views(Persons.listOfRichard()), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+}
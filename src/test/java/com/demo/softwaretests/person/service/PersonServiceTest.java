@@ -2,16 +2,31 @@ package com.demo.softwaretests.person.service;
 
 import com.demo.softwaretests.person.entity.Person;
 import com.demo.softwaretests.person.exception.PersonCreationException;
+import com.demo.softwaretests.person.exception.PersonQueryException;
 import com.demo.softwaretests.person.repository.PersonRepository;
+import com.demo.softwaretests.person.repository.PersonView;
 import com.demo.softwaretests.person.util.Persons;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +37,31 @@ public class PersonServiceTest {
     @Mock
     private PersonRepository personRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EmailAddressBloomFilter emailAddressFilter;
+
+    @Spy
+    private PersonQueryCache personQueryCache = new PersonQueryCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1));
+
+    @Mock
+    private PersonAgeIndex personAgeIndex;
+
+    @Mock
+    private PersonWriteBuffer personWriteBuffer;
+
+    @Spy
+    private ReplicaReads replicaReads = new ReplicaReads(
+            null, null, new SimpleMeterRegistry(), Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    @Spy
+    private PersonShards personShards = new PersonShards(null, null, mock(PlatformTransactionManager.class), 1000);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PersonService personService;
 
@@ -29,15 +69,17 @@ public class PersonServiceTest {
     public void givenEmailDomain_whenGetAllPersonsByEmailDomain_thenReturnPersons() {
         // Arrange
         var domain = "@gmail.com";
-        when(personRepository.findAllByEmailAddressEndsWith(domain)).thenReturn(Persons.listOfRichard());
+        when(personRepository.findPageByEmailDomain("gmail.com", 0, Limit.of(11))).thenReturn(Persons.views(Persons.listOfRichard()));
 
         // Act
-        List<Person> persons = personService.getAllPersonsByEmailDomain(domain);
+        PersonPage page = personService.getAllPersonsByEmailDomain(domain, 10, null);
 
         // Assert
+        List<PersonView> persons = page.persons();
         assertNotNull(persons);
+        assertNull(page.nextCursor());
         assertEquals(1, persons.size());
-        assertEquals("richard.ruediger@gmail.com", persons.getFirst().getEmailAddress());
+        assertEquals("richard.ruediger@gmail.com", persons.getFirst().emailAddress());
     }
 
     @Test
@@ -45,17 +87,106 @@ public class PersonServiceTest {
         // Arrange
         int fromAge = 30;
         int toAge = 50;
-        when(personRepository.findAllByAgeBetween(fromAge, toAge)).thenReturn(Persons.listOfRichard());
+        var range = DateOfBirthRange.forAgeRange(fromAge, toAge, LocalDate.now());
+        when(personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(11)))
+                .thenReturn(Persons.views(Persons.listOfRichard()));
 
         // Act
-        List<Person> persons = personService.getAllPersonsByAgeRange(fromAge, toAge);
+        List<PersonView> persons = personService.getAllPersonsByAgeRange(fromAge, toAge, 10, null).persons();
 
         // Assert
         assertNotNull(persons);
         assertEquals(1, persons.size());
 
-        Person foundPerson = persons.getFirst();
-        assertTrue(foundPerson.getAge() >= fromAge && foundPerson.getAge() <= toAge);
+        PersonView foundPerson = persons.getFirst();
+        assertTrue(foundPerson.age() >= fromAge && foundPerson.age() <= toAge);
+    }
+
+    @Test
+    public void givenRepeatedQuery_whenGetAllPersonsByAgeRange_thenServeFromCache() {
+        // Arrange
+        var range = DateOfBirthRange.forAgeRange(30, 50, LocalDate.now());
+        when(personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(11)))
+                .thenReturn(Persons.views(Persons.listOfRichard()));
+
+        // Act
+        PersonPage firstPage = personService.getAllPersonsByAgeRange(30, 50, 10, null);
+        PersonPage secondPage = personService.getAllPersonsByAgeRange(30, 50, 10, null);
+
+        // Assert
+        assertSame(firstPage, secondPage);
+        verify(personRepository, times(1)).findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(11));
+    }
+
+    @Test
+    public void givenMorePersonsThanLimit_whenGetAllPersonsByAgeRange_thenReturnNextCursor() {
+        // Arrange
+        Person richard = Persons.richard();
+        ReflectionTestUtils.setField(richard, "id", 7L);
+        var range = DateOfBirthRange.forAgeRange(20, 60, LocalDate.now());
+        when(personRepository.findPageByDateOfBirthRange(
+                range.bornAfter(), range.bornOnOrBefore(), range.bornOnOrBefore().plusDays(1), 0, Limit.of(2)))
+                .thenReturn(Persons.views(List.of(richard, Persons.lilliane())));
+
+        // Act
+        PersonPage page = personService.getAllPersonsByAgeRange(20, 60, 1, null);
+
+        // Assert
+        assertEquals(1, page.persons().size());
+        assertEquals(new PersonCursor(richard.getDateOfBirth().toString(), 7), PersonCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    public void givenCursor_whenGetAllPersonsByAgeRange_thenContinueAfterCursor() {
+        // Arrange
+        var range = DateOfBirthRange.forAgeRange(20, 60, LocalDate.now());
+        LocalDate afterDateOfBirth = LocalDate.now().minusYears(29);
+        var after = new PersonCursor(afterDateOfBirth.toString(), 7).encode();
+        when(personRepository.findPageByDateOfBirthRange(range.bornAfter(), range.bornOnOrBefore(), afterDateOfBirth, 7, Limit.of(11)))
+                .thenReturn(Persons.views(Persons.listOfRichard()));
+
+        // Act
+        PersonPage page = personService.getAllPersonsByAgeRange(20, 60, 10, after);
+
+        // Assert
+        assertEquals(1, page.persons().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void givenCursorOfOtherDomain_whenGetAllPersonsByEmailDomain_thenThrowPersonQueryException() {
+        // Arrange
+        var after = new PersonCursor("yahoo.com", 7).encode();
+
+        // Act & Assert
+        PersonQueryException exception = assertThrows(
+                PersonQueryException.class,
+                () -> personService.getAllPersonsByEmailDomain("gmail.com", 10, after)
+        );
+        assertEquals("The cursor: " + after + " does not belong to this query.", exception.getMessage());
+    }
+
+    @Test
+    public void givenMalformedCursor_whenGetAllPersonsByAgeRange_thenThrowPersonQueryException() {
+        // Act & Assert
+        PersonQueryException exception = assertThrows(
+                PersonQueryException.class,
+                () -> personService.getAllPersonsByAgeRange(20, 60, 10, "not-a-cursor")
+        );
+        assertEquals("The cursor: not-a-cursor is invalid.", exception.getMessage());
+    }
+
+    @Test
+    public void givenLimitAboveMaximum_whenGetAllPersonsByAgeRange_thenThrowPersonQueryException() {
+        // Act & Assert
+        PersonQueryException exception = assertThrows(
+                PersonQueryException.class,
+                () -> personService.getAllPersonsByAgeRange(20, 60, 1001, null)
+        );
+        assertEquals("The limit must be between 1 and 1000.", exception.getMessage());
     }
 
     @Test
@@ -70,7 +201,84 @@ public class PersonServiceTest {
         personService.createPerson(firstName, lastName, email, dateOfBirth);
 
         // Assert
-        verify(personRepository, times(1)).save(any(Person.class));
+        verify(personRepository, times(1)).saveAndFlush(any(Person.class));
+        verify(personRepository, never()).existsByEmailAddress(email);
+        verify(eventPublisher, times(1)).publishEvent(any(PersonsCreatedEvent.class));
+    }
+
+    @Test
+    public void givenEmailUniqueConstraintViolation_whenCreatePerson_thenThrowPersonCreationException() {
+        // Arrange
+        var email = "lilliane.langdorf@icloud.com";
+        var violation = new ConstraintViolationException("duplicate", new SQLException(), Person.EMAIL_ADDRESS_CONSTRAINT);
+        when(personRepository.saveAndFlush(any(Person.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate", violation));
+
+        // Act & Assert
+        PersonCreationException exception = assertThrows(
+                PersonCreationException.class,
+                () -> personService.createPerson("Lilliane", "Langdorf", email, LocalDate.of(1995, 3, 20))
+        );
+        assertEquals("The email address: lilliane.langdorf@icloud.com is already in use.", exception.getMessage());
+    }
+
+    @Test
+    public void givenOtherConstraintViolation_whenCreatePerson_thenRethrowDataIntegrityViolationException() {
+        // Arrange
+        var violation = new ConstraintViolationException("not null", new SQLException(), "other_constraint");
+        when(personRepository.saveAndFlush(any(Person.class)))
+                .thenThrow(new DataIntegrityViolationException("not null", violation));
+
+        // Act & Assert
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> personService.createPerson("Lilliane", "Langdorf", "lilliane.langdorf@icloud.com", LocalDate.of(1995, 3, 20))
+        );
+    }
+
+    @Test
+    public void givenMixedRequests_whenCreatePersons_thenSaveValidPersonsAndRejectOthers() {
+        // Arrange
+        var dateOfBirth = LocalDate.of(1990, 1, 1);
+        List<PersonCreationRequest> requests = List.of(
+                new PersonCreationRequest("Emma", "Eidhoven", "emma.eidhoven@hotmail.com", dateOfBirth),
+                new PersonCreationRequest("Junior", "Jamestown", "junior.jamestown@hotmail.com", LocalDate.now().minusYears(15)),
+                new PersonCreationRequest("Fred", "Faker", "richard.ruediger@gmail.com", dateOfBirth),
+                new PersonCreationRequest("Emma", "Copy", "emma.eidhoven@hotmail.com", dateOfBirth)
+        );
+        when(emailAddressFilter.mightContain(anyString()))
+                .thenAnswer(invocation -> "richard.ruediger@gmail.com".equals(invocation.getArgument(0)));
+        when(personRepository.findEmailAddressesIn(List.of("richard.ruediger@gmail.com")))
+                .thenReturn(Set.of("richard.ruediger@gmail.com"));
+
+        // Act
+        List<PersonCreationResult> results = personService.createPersons(requests);
+
+        // Assert
+        assertEquals(List.of(
+                PersonCreationResult.created("emma.eidhoven@hotmail.com"),
+                PersonCreationResult.rejected("junior.jamestown@hotmail.com", "The minimum required age is 18."),
+                PersonCreationResult.rejected("richard.ruediger@gmail.com", "The email address: richard.ruediger@gmail.com is already in use."),
+                PersonCreationResult.rejected("emma.eidhoven@hotmail.com", "The email address: emma.eidhoven@hotmail.com is already in use.")
+        ), results);
+        verify(personRepository, times(1)).findEmailAddressesIn(anyCollection());
+        verify(emailAddressFilter, times(1)).recordConfirmations(1, 1);
+        verify(personRepository, times(1)).saveAll(argThat(persons -> ((List<Person>) persons).size() == 1));
+    }
+
+    @Test
+    public void givenTooManyRequests_whenCreatePersons_thenThrowPersonCreationException() {
+        // Arrange
+        var request = new PersonCreationRequest("Emma", "Eidhoven", "emma.eidhoven@hotmail.com", LocalDate.of(1990, 1, 1));
+        List<PersonCreationRequest> requests = Collections.nCopies(10_001, request);
+
+        // Act & Assert
+        PersonCreationException exception = assertThrows(
+                PersonCreationException.class,
+                () -> personService.createPersons(requests)
+        );
+        assertEquals("At most 10000 persons can be created at once.", exception.getMessage());
+        verifyNoInteractions(personRepository);
     }
 
     @Test
@@ -96,6 +304,20 @@ public class PersonServiceTest {
         assertDoesNotThrow(() -> personService.validateParameters(dateOfBirth, email));
     }
 
+    @Test
+    public void givenEmailRuledOutByFilter_whenValidateParameters_thenSkipRepositoryLookup() {
+        // Arrange
+        var email = "example@gmail.com";
+        var dateOfBirth = LocalDate.of(2000, 1, 1);
+        when(emailAddressFilter.mightContain(email)).thenReturn(false);
+
+        // Act
+        personService.validateParameters(dateOfBirth, email);
+
+        // Assert
+        verify(personRepository, never()).existsByEmailAddress(email);
+    }
+
     @Test
     public void givenTooYoungPerson_whenValidateParameters_thenThrowPersonCreationException() {
         // Arrange
@@ -110,11 +332,25 @@ public class PersonServiceTest {
         assertEquals("The minimum required age is 18.", personCreationException.getMessage());
     }
 
+    @Test
+    public void givenNoEmail_whenValidateParameters_thenThrowPersonCreationException() {
+        // Arrange
+        var dateOfBirth = LocalDate.of(1990, 1, 1);
+
+        // Act & Assert
+        PersonCreationException personCreationException = assertThrows(
+                PersonCreationException.class,
+                () -> personService.validateParameters(dateOfBirth, null)
+        );
+        assertEquals("First name, last name, email and date of birth are required.", personCreationException.getMessage());
+    }
+
     @Test
     public void givenDuplicateEmail_whenValidateParameters_thenThrowPersonCreationException() {
         // Arrange
         var email = "example@gmail.com";
         var dateOfBirth = LocalDate.of(1990, 1, 1);
+        when(emailAddressFilter.mightContain(email)).thenReturn(true);
         when(personRepository.existsByEmailAddress(email)).thenReturn(true);
 
         // Act & Assert
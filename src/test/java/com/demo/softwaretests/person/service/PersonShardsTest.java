@@ -0,0 +1,66 @@
+package com.demo.softwaretests.person.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonShardsTest {
+
+    @Test
+    void givenManyKeys_whenJumpConsistentHash_thenSpreadThemEvenly() {
+        // Arrange
+        int keys = 100_000;
+        int[] counts = new int[8];
+
+        // Act
+        for (long key = 0; key < keys; key++) {
+            counts[PersonShards.jumpConsistentHash(key * 0x9e3779b97f4a7c15L, counts.length)]++;
+        }
+
+        // Assert
+        for (int count : counts) {
+            assertThat(count).isBetween(keys / 8 * 95 / 100, keys / 8 * 105 / 100);
+        }
+    }
+
+    @Test
+    void givenAddedShard_whenJumpConsistentHash_thenOnlyMoveKeysToTheNewShard() {
+        // Arrange
+        int keys = 100_000;
+        int moved = 0;
+
+        // Act & Assert
+        for (long key = 0; key < keys; key++) {
+            int before = PersonShards.jumpConsistentHash(key * 0x9e3779b97f4a7c15L, 4);
+            int after = PersonShards.jumpConsistentHash(key * 0x9e3779b97f4a7c15L, 5);
+            if (before != after) {
+                assertThat(after).isEqualTo(4);
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(keys / 5 * 95 / 100, keys / 5 * 105 / 100);
+    }
+
+    @Test
+    void givenNoShards_whenQuery_thenRunItOnTheOnlyDatabase() {
+        // Arrange
+        var personShards = new PersonShards(null, null, null, 1000);
+
+        // Act
+        List<List<Integer>> results = personShards.onEveryShard(() -> List.of(1, 2));
+        List<Integer> merged = personShards.mergeFromEveryShard(() -> List.of(3, 1), Integer::compare, 1);
+        List<Integer> streamed = new ArrayList<>();
+        personShards.streamFromEveryShard(() -> Stream.of(5, 4), Integer::compare, streamed::add);
+
+        // Assert
+        assertThat(personShards.isEnabled()).isFalse();
+        assertThat(personShards.shardOf("richard.ruediger@gmail.com")).isZero();
+        assertThat(results).containsExactly(List.of(1, 2));
+        assertThat(merged).containsExactly(3, 1);
+        assertThat(streamed).containsExactly(5, 4);
+    }
+}
@@ -0,0 +1,132 @@
+package com.demo.softwaretests.person.service;
+
+import com.demo.softwaretests.person.exception.PersonCreationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonWriteBufferTest {
+
+    private static final PersonCreationRequest RICHARD =
+            new PersonCreationRequest("Richard", "Rüdiger", "richard.ruediger@gmail.com", LocalDate.of(1984, 1, 1));
+    private static final PersonCreationRequest BIANCA =
+            new PersonCreationRequest("Bianca", "Bambus", "bianca.bambus@gmail.com", LocalDate.of(1990, 6, 1));
+
+    @Mock
+    private ObjectProvider<PersonService> personServiceProvider;
+
+    @Mock
+    private PersonService personService;
+
+    private PersonWriteBuffer personWriteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        personWriteBuffer = new PersonWriteBuffer(
+                personServiceProvider, new SimpleMeterRegistry(), true, 10, 10, Duration.ZERO, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        personWriteBuffer.close();
+    }
+
+    @Test
+    void givenClosedBuffer_whenCreatePerson_thenRejectTheRequest() throws InterruptedException {
+        // Arrange
+        personWriteBuffer.close();
+
+        // Act & Assert
+        assertThatThrownBy(() -> personWriteBuffer.createPerson(RICHARD))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("The person write buffer is closed.");
+    }
+
+    @Test
+    void givenBatchNeverCommitting_whenCreatePerson_thenGiveUpAfterMaxWait() throws InterruptedException {
+        // Arrange
+        personWriteBuffer.close();
+        personWriteBuffer = new PersonWriteBuffer(
+                personServiceProvider, new SimpleMeterRegistry(), true, 10, 10, Duration.ZERO, Duration.ofMillis(100));
+        var release = new CountDownLatch(1);
+        when(personServiceProvider.getObject()).thenReturn(personService);
+        when(personService.createPersons(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(PersonCreationResult.created(RICHARD.email()));
+        });
+
+        // Act & Assert
+        try {
+            assertThatThrownBy(() -> personWriteBuffer.createPerson(RICHARD))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("The person creation did not commit within PT0.1S, the person may still be created.");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void givenRequestStillQueuedAtMaxWait_whenCreatePerson_thenWithdrawIt() throws InterruptedException {
+        // Arrange
+        personWriteBuffer.close();
+        personWriteBuffer = new PersonWriteBuffer(
+                personServiceProvider, new SimpleMeterRegistry(), true, 10, 10, Duration.ZERO, Duration.ofMillis(100));
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(personServiceProvider.getObject()).thenReturn(personService);
+        when(personService.createPersons(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return List.of(PersonCreationResult.created(RICHARD.email()));
+        });
+        var first = CompletableFuture.runAsync(() -> personWriteBuffer.createPerson(RICHARD));
+        writing.await();
+
+        // Act & Assert
+        try {
+            assertThatThrownBy(() -> personWriteBuffer.createPerson(BIANCA))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("The person creation did not start within PT0.1S, the person was not created.");
+        } finally {
+            release.countDown();
+        }
+        first.exceptionally(exception -> null).join();
+        personWriteBuffer.close();
+        verify(personService).createPersons(List.of(RICHARD));
+        verifyNoMoreInteractions(personService);
+    }
+
+    @Test
+    void givenEmailAddressTakenConcurrently_whenCreatePerson_thenThrowPersonCreationException() {
+        // Arrange
+        when(personServiceProvider.getObject()).thenReturn(personService);
+        when(personService.createPersons(anyList())).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "PUBLIC.UK_PERSON_EMAIL_ADDRESS_INDEX_8")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> personWriteBuffer.createPerson(RICHARD))
+                .isInstanceOf(PersonCreationException.class)
+                .hasMessage("The email address: richard.ruediger@gmail.com is already in use.");
+    }
+}
@@ -1,8 +1,12 @@
 package com.demo.softwaretests.person.util;
 
 import com.demo.softwaretests.person.entity.Person;
+import com.demo.softwaretests.person.repository.PersonView;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class Persons {
 
@@ -12,7 +16,7 @@ public class Persons {
         var richard = new Person();
         richard.setFullName("Richard Rüdiger");
         richard.setEmailAddress("richard.ruediger@gmail.com");
-        richard.setAge(41);
+        richard.setDateOfBirth(LocalDate.now().minusYears(41));
         return richard;
     }
 
@@ -20,7 +24,7 @@ public class Persons {
         var guenther = new Person();
         guenther.setFullName("Günther Grandiger");
         guenther.setEmailAddress("guenther.grandiger@gmail.com");
-        guenther.setAge(55);
+        guenther.setDateOfBirth(LocalDate.now().minusYears(55));
         return guenther;
     }
 
@@ -28,7 +32,7 @@ public class Persons {
         var lilliane = new Person();
         lilliane.setFullName("Lilliane Langdorf");
         lilliane.setEmailAddress("lilliane.langdorf@icloud.com");
-        lilliane.setAge(29);
+        lilliane.setDateOfBirth(LocalDate.now().minusYears(29));
         return lilliane;
     }
 
@@ -36,7 +40,7 @@ public class Persons {
         var bianca = new Person();
         bianca.setFullName("Bianca Bambus");
         bianca.setEmailAddress("bianca.bambus@yahoo.com");
-        bianca.setAge(22);
+        bianca.setDateOfBirth(LocalDate.now().minusYears(22));
         return bianca;
     }
 
@@ -55,4 +59,27 @@ public class Persons {
     public static List<Person> listOfRichardAndGuentherAndLilliane() {
         return List.of(richard(), guenther(), lilliane());
     }
-}
\ No newline at end of file
+
+    public static List<Person> generate(int count) {
+        var random = new Random(count);
+        var emailDomains = List.of("gmail.com", "icloud.com", "yahoo.com", "hotmail.com", "gmx.de");
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var person = new Person();
+            person.setFullName("First" + i + " Last" + i);
+            person.setEmailAddress("person" + i + "@" + emailDomains.get(i % emailDomains.size()));
+            person.setDateOfBirth(LocalDate.now().minusYears(18).minusDays(random.nextInt(60 * 365)));
+            persons.add(person);
+        }
+        return persons;
+    }
+
+    public static PersonView view(Person person) {
+        return new PersonView(
+                person.getId(), person.getFullName(), person.getEmailAddress(), person.getEmailDomain(), person.getDateOfBirth());
+    }
+
+    public static List<PersonView> views(List<Person> persons) {
+        return persons.stream().map(Persons::view).toList();
+    }
+}